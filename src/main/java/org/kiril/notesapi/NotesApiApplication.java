@@ -1,9 +1,12 @@
 package org.kiril.notesapi;
 
+import org.kiril.notesapi.config.NotesApiRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 
 @SpringBootApplication
+@ImportRuntimeHints(NotesApiRuntimeHints.class)
 public class NotesApiApplication {
 
     public static void main(String[] args) {
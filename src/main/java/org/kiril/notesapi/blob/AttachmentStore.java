@@ -0,0 +1,96 @@
+package org.kiril.notesapi.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+
+/**
+ * Content-addressed store for attachment files. Files are kept uncompressed so downloads can be
+ * served straight from disk, including byte ranges, and identical uploads share one file.
+ */
+public class AttachmentStore {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path directory;
+
+    public AttachmentStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public record StoredFile(String sha256, long size) {
+    }
+
+    public static class TooLargeException extends RuntimeException {
+        public TooLargeException(long maxSize) {
+            super("Attachment exceeds the maximum size of " + maxSize + " bytes");
+        }
+    }
+
+    // Copies the stream to disk through a fixed buffer, hashing as it goes
+    public StoredFile write(InputStream content, long maxSize) {
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, "upload", StoredFiles.TEMP_SUFFIX);
+            MessageDigest digest = StoredFiles.sha256();
+            long size = 0;
+            byte[] buffer = new byte[BUFFER_SIZE];
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                int read;
+                while ((read = content.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxSize) {
+                        throw new TooLargeException(maxSize);
+                    }
+                    digest.update(buffer, 0, read);
+                    out.write(buffer, 0, read);
+                }
+            }
+
+            String sha256 = StoredFiles.hex(digest.digest());
+            Path path = StoredFiles.pathFor(directory, sha256);
+            if (Files.exists(path)) {
+                Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+                Files.delete(temp);
+            } else {
+                Files.createDirectories(path.getParent());
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredFile(sha256, size);
+        } catch (IOException e) {
+            deleteQuietly(temp);
+            throw new UncheckedIOException("Could not store attachment", e);
+        } catch (RuntimeException e) {
+            deleteQuietly(temp);
+            throw e;
+        }
+    }
+
+    public Path pathFor(String sha256) {
+        return StoredFiles.pathFor(directory, sha256);
+    }
+
+    public int collectGarbage(Predicate<String> referenced, Duration gracePeriod) {
+        return StoredFiles.deleteUnreferenced(directory, referenced, gracePeriod);
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ignored) {
+            // Left for the garbage collector
+        }
+    }
+}
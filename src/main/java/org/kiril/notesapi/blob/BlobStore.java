@@ -0,0 +1,99 @@
+package org.kiril.notesapi.blob;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * Content-addressed store for large note bodies. Each blob is deflated into a file named by the
+ * SHA-256 of its uncompressed bytes, so identical bodies are stored once no matter who wrote them.
+ */
+public class BlobStore {
+    private final Path directory;
+
+    public BlobStore(Path directory) {
+        this.directory = directory;
+    }
+
+    // Returns the hash the content is stored under; writing an existing blob only refreshes it
+    public String put(byte[] content) {
+        String hash = StoredFiles.hex(StoredFiles.sha256().digest(content));
+        Path path = pathFor(hash);
+        try {
+            if (Files.exists(path)) {
+                // Keeps a blob that is about to be referenced again out of the GC's reach
+                Files.setLastModifiedTime(path, FileTime.from(Instant.now()));
+                return hash;
+            }
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), hash, StoredFiles.TEMP_SUFFIX);
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (OutputStream out = new DeflaterOutputStream(Files.newOutputStream(temp), deflater)) {
+                out.write(content);
+            } finally {
+                deflater.end();
+            }
+            // A concurrent writer of the same hash produces identical bytes, so replacing is safe
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE);
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store blob " + hash, e);
+        }
+    }
+
+    // Inflates straight from a memory-mapped view of the file into a buffer of the known size
+    public byte[] read(String hash, int length) {
+        try (FileChannel channel = FileChannel.open(pathFor(hash), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(mapped);
+                byte[] content = new byte[length];
+                int read = 0;
+                while (read < length && !inflater.finished()) {
+                    int inflated = inflater.inflate(content, read, length - read);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    read += inflated;
+                }
+                if (read != length) {
+                    throw new IllegalStateException("Blob " + hash + " is truncated: " + read + " of " + length + " bytes");
+                }
+                return content;
+            } finally {
+                inflater.end();
+            }
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Blob " + hash + " is missing", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read blob " + hash, e);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Blob " + hash + " is corrupt", e);
+        }
+    }
+
+    // Deletes blobs that are not referenced and were not written within the grace period
+    public int collectGarbage(Predicate<String> referenced, Duration gracePeriod) {
+        return StoredFiles.deleteUnreferenced(directory, referenced, gracePeriod);
+    }
+
+    private Path pathFor(String hash) {
+        return StoredFiles.pathFor(directory, hash);
+    }
+}
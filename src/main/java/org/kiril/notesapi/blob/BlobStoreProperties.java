@@ -0,0 +1,39 @@
+package org.kiril.notesapi.blob;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notes.blob")
+public class BlobStoreProperties {
+    // Off by default: bodies stay in the notes table unless a shared directory is configured
+    private boolean enabled;
+
+    // Required when enabled, and must be shared between nodes serving the same database
+    private Path directory;
+
+    // With the store enabled, note bodies of at least this many UTF-8 bytes are moved out of the notes table
+    private DataSize inlineThreshold = DataSize.ofKilobytes(16);
+
+    // Off by default for the same reason as the blob store: attachment uploads are refused until enabled
+    private boolean attachmentsEnabled;
+
+    // Attachment files, stored uncompressed so they can be sent with sendfile; required when
+    // attachments are enabled, and shared between nodes like the blob directory
+    private Path attachmentsDirectory;
+
+    private DataSize maxAttachmentSize = DataSize.ofMegabytes(100);
+
+    // Append-only segments holding the bodies of archived notes; required when notes.archive.enabled,
+    // and shared between nodes like the blob directory
+    private Path archiveDirectory;
+
+    private Duration gcInterval = Duration.ofHours(1);
+
+    // Unreferenced blobs younger than this are kept, since their note may not be committed yet
+    private Duration gcGracePeriod = Duration.ofHours(1);
+}
@@ -0,0 +1,96 @@
+package org.kiril.notesapi.blob;
+
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.NoteRevision;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decides whether a note body stays inline in the notes table or goes to the {@link BlobStore},
+ * and resolves it again on read. An externalized row keeps only the hash and byte length; an
+ * archived row only its location in the {@link SegmentArchive}. Writing always leaves the body
+ * outside the archive, which is how an edit promotes a cold note back. Without a blob store
+ * (notes.blob.enabled=false) every body stays inline. Revision snapshots follow the same rule and
+ * reference the blob of the body they copy, so keeping history does not store it again.
+ */
+public class NoteBodies {
+    // Null when the blob store or the archive is not enabled
+    private final BlobStore blobStore;
+    private final SegmentArchive segmentArchive;
+    private final long inlineThreshold;
+
+    public NoteBodies(BlobStore blobStore, SegmentArchive segmentArchive, long inlineThreshold) {
+        this.blobStore = blobStore;
+        this.segmentArchive = segmentArchive;
+        this.inlineThreshold = inlineThreshold;
+    }
+
+    public void write(Note note, String content) {
+        note.setArchiveSegment(null);
+        note.setArchiveOffset(null);
+        note.setArchiveLength(null);
+
+        byte[] bytes = externalized(content);
+        if (bytes == null) {
+            note.setContent(content);
+            note.setContentHash(null);
+            note.setContentLength(null);
+            return;
+        }
+        note.setContent(null);
+        note.setContentHash(blobStore.put(bytes));
+        note.setContentLength(bytes.length);
+    }
+
+    public void writeSnapshot(NoteRevision revision, String content) {
+        byte[] bytes = externalized(content);
+        if (bytes == null) {
+            revision.setContent(content);
+            return;
+        }
+        revision.setContentHash(blobStore.put(bytes));
+        revision.setContentLength(bytes.length);
+    }
+
+    public String readSnapshot(NoteRevision revision) {
+        return read(revision.getContent(), revision.getContentHash(), revision.getContentLength(), null);
+    }
+
+    public String read(Note note) {
+        return read(note.getContent(), note.getContentHash(), note.getContentLength(), archiveLocation(note));
+    }
+
+    public String read(String inlineContent, String contentHash, Integer contentLength,
+                       SegmentArchive.Location archiveLocation) {
+        if (archiveLocation != null) {
+            if (segmentArchive == null) {
+                throw new IllegalStateException("Body is archived in segment " + archiveLocation.segment()
+                        + ", but notes.archive.enabled is false");
+            }
+            return new String(segmentArchive.read(archiveLocation, contentLength), StandardCharsets.UTF_8);
+        }
+        if (contentHash == null) {
+            return inlineContent;
+        }
+        if (blobStore == null) {
+            throw new IllegalStateException("Body " + contentHash + " is in the blob store, but notes.blob.enabled is false");
+        }
+        return new String(blobStore.read(contentHash, contentLength), StandardCharsets.UTF_8);
+    }
+
+    // The UTF-8 bytes when the body goes to the blob store, null when it stays inline
+    private byte[] externalized(String content) {
+        if (content == null || blobStore == null) {
+            return null;
+        }
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return bytes.length < inlineThreshold ? null : bytes;
+    }
+
+    private static SegmentArchive.Location archiveLocation(Note note) {
+        if (note.getArchiveSegment() == null) {
+            return null;
+        }
+        return new SegmentArchive.Location(note.getArchiveSegment(), note.getArchiveOffset(), note.getArchiveLength());
+    }
+}
@@ -0,0 +1,144 @@
+package org.kiril.notesapi.blob;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Append-only segment files for the bodies of cold notes. Each body is deflated on its own, so one
+ * can be read back from its offset and length without touching the rest of the segment. A segment
+ * is written by a single archiver run and never modified afterwards.
+ */
+public class SegmentArchive {
+    private static final DateTimeFormatter SEGMENT_DATE = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path directory;
+
+    public SegmentArchive(Path directory) {
+        this.directory = directory;
+    }
+
+    public record Location(String segment, long offset, int length) {
+    }
+
+    // Segment names are unique per run, so archivers on several nodes never share a file
+    public Writer newSegment() {
+        String segment = LocalDate.now().format(SEGMENT_DATE) + "-" + UUID.randomUUID() + ".seg";
+        try {
+            Files.createDirectories(directory);
+            return new Writer(segment, FileChannel.open(directory.resolve(segment),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create archive segment " + segment, e);
+        }
+    }
+
+    public byte[] read(Location location, int contentLength) {
+        try (FileChannel channel = FileChannel.open(directory.resolve(location.segment()), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, location.offset(), location.length());
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(mapped);
+                byte[] content = new byte[contentLength];
+                int read = 0;
+                while (read < contentLength && !inflater.finished()) {
+                    int inflated = inflater.inflate(content, read, contentLength - read);
+                    if (inflated == 0 && inflater.needsInput()) {
+                        break;
+                    }
+                    read += inflated;
+                }
+                if (read != contentLength) {
+                    throw new IllegalStateException("Archived body in " + location.segment() + " at "
+                            + location.offset() + " is truncated");
+                }
+                return content;
+            } finally {
+                inflater.end();
+            }
+        } catch (NoSuchFileException e) {
+            throw new IllegalStateException("Archive segment " + location.segment() + " is missing", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read archive segment " + location.segment(), e);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Archived body in " + location.segment() + " is corrupt", e);
+        }
+    }
+
+    // Segments no note points into anymore; partially referenced segments are kept whole
+    public int collectGarbage(Predicate<String> referenced, Duration gracePeriod) {
+        return StoredFiles.deleteUnreferenced(directory, referenced, gracePeriod);
+    }
+
+    public static class Writer implements Closeable {
+        private final String segment;
+        private final FileChannel channel;
+        private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        private byte[] buffer = new byte[64 * 1024];
+        private long position;
+
+        private Writer(String segment, FileChannel channel) {
+            this.segment = segment;
+            this.channel = channel;
+        }
+
+        public Location append(byte[] content) {
+            deflater.reset();
+            deflater.setInput(content);
+            deflater.finish();
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+
+            long offset = position;
+            try {
+                ByteBuffer out = ByteBuffer.wrap(buffer, 0, length);
+                while (out.hasRemaining()) {
+                    position += channel.write(out);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not append to archive segment " + segment, e);
+            }
+            return new Location(segment, offset, length);
+        }
+
+        // Must succeed before any row points into the segment
+        public void sync() {
+            try {
+                channel.force(true);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not sync archive segment " + segment, e);
+            }
+        }
+
+        @Override
+        public void close() {
+            deflater.end();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close archive segment " + segment, e);
+            }
+        }
+    }
+}
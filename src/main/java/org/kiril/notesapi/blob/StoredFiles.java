@@ -0,0 +1,68 @@
+package org.kiril.notesapi.blob;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+// Layout and garbage collection shared by the content-addressed stores
+final class StoredFiles {
+    static final String TEMP_SUFFIX = ".tmp";
+
+    private StoredFiles() {
+    }
+
+    // Two levels of fan-out keep directories small: ab/abcdef...
+    static Path pathFor(Path directory, String hash) {
+        return directory.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static String hex(byte[] digest) {
+        return HexFormat.of().formatHex(digest);
+    }
+
+    // Deletes files that are not referenced and were not written within the grace period
+    static int deleteUnreferenced(Path directory, Predicate<String> referenced, Duration gracePeriod) {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(directory, 2)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not list " + directory, e);
+        }
+
+        int deleted = 0;
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            try {
+                boolean orphan = name.endsWith(TEMP_SUFFIX) || !referenced.test(name);
+                if (orphan && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)
+                        && Files.deleteIfExists(file)) {
+                    deleted++;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not delete " + file, e);
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,88 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers cache writes made inside a transaction until it commits, then sends them to Redis as one
+ * pipeline. A rollback discards them. Outside a transaction every write goes out immediately.
+ */
+@Component
+public class AfterCommitCacheWriter {
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+
+    public AfterCommitCacheWriter(ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        this.redisConnectionFactory = redisConnectionFactory;
+    }
+
+    public void put(Cache cache, Object key, Object value) {
+        ResilientCache gate = cache instanceof ResilientCache resilient ? resilient : null;
+        if (redisCacheOf(cache) instanceof RedisCache redisCache && value != null) {
+            byte[] rawKey = RedisCacheEntries.key(redisCache, key);
+            byte[] rawValue = RedisCacheEntries.value(redisCache, value);
+            submit(TransactionalCacheBatch.Operation.pipelined(connection -> {
+                        unpin(gate, key);
+                        connection.stringCommands()
+                                .set(rawKey, rawValue, RedisCacheEntries.expiration(redisCache, key, value), SetOption.upsert());
+                    }, gate, gate == null ? null : () -> gate.putLocally(key, value)));
+        } else {
+            submit(TransactionalCacheBatch.Operation.direct(() -> cache.put(key, value)));
+        }
+    }
+
+    public void evict(Cache cache, Object key) {
+        ResilientCache gate = cache instanceof ResilientCache resilient ? resilient : null;
+        if (redisCacheOf(cache) instanceof RedisCache redisCache) {
+            byte[] rawKey = RedisCacheEntries.key(redisCache, key);
+            submit(TransactionalCacheBatch.Operation.pipelined(connection -> {
+                        unpin(gate, key);
+                        connection.keyCommands().del(rawKey);
+                    }, gate, gate == null ? null : () -> gate.evictLocally(key)));
+        } else {
+            submit(TransactionalCacheBatch.Operation.direct(() -> cache.evict(key)));
+        }
+    }
+
+    // Clearing and prefix removal scan the keyspace, so they run in order between pipelines
+    public void afterCommit(Runnable action) {
+        submit(TransactionalCacheBatch.Operation.direct(action));
+    }
+
+    // The pinned copy of a hot key would otherwise keep serving the old value on this node
+    private static void unpin(ResilientCache gate, Object key) {
+        if (gate != null) {
+            gate.unpin(key);
+        }
+    }
+
+    private static Cache redisCacheOf(Cache cache) {
+        return cache instanceof ResilientCache resilient ? resilient.getRemote() : cache;
+    }
+
+    private void submit(TransactionalCacheBatch.Operation operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            new TransactionalCacheBatch(redisConnectionFactory).run(operation);
+            return;
+        }
+        currentBatch().add(operation);
+    }
+
+    // Synchronizations are suspended with their transaction, so a nested one gets its own batch
+    private TransactionalCacheBatch currentBatch() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionalCacheBatch batch) {
+                return batch;
+            }
+        }
+        TransactionalCacheBatch batch = new TransactionalCacheBatch(redisConnectionFactory);
+        TransactionSynchronizationManager.registerSynchronization(batch);
+        return batch;
+    }
+}
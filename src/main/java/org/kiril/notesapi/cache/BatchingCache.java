@@ -0,0 +1,62 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.cache.Cache;
+
+import java.util.concurrent.Callable;
+
+// Reads go straight to the target cache; puts and evictions go through the AfterCommitCacheWriter
+public class BatchingCache implements Cache {
+    private final Cache target;
+    private final AfterCommitCacheWriter writer;
+
+    public BatchingCache(Cache target, AfterCommitCacheWriter writer) {
+        this.target = target;
+        this.writer = writer;
+    }
+
+    // Code that needs provider specifics, like prefix eviction or MGET, works on the target. That is a
+    // ResilientCache for Redis caches, which has to be asked before going to Redis itself.
+    public static Cache unwrap(Cache cache) {
+        return cache instanceof BatchingCache batching ? batching.target : cache;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return target.get(key);
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        return target.get(key, type);
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return target.get(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        writer.put(target, key, value);
+    }
+
+    @Override
+    public void evict(Object key) {
+        writer.evict(target, key);
+    }
+
+    @Override
+    public void clear() {
+        writer.afterCommit(target::clear);
+    }
+}
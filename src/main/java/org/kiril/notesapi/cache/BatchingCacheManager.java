@@ -0,0 +1,38 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Hands out BatchingCache wrappers around the caches of the configured CacheManager
+public class BatchingCacheManager implements CacheManager {
+    private final CacheManager target;
+    private final AfterCommitCacheWriter writer;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public BatchingCacheManager(CacheManager target, AfterCommitCacheWriter writer) {
+        this.target = target;
+        this.writer = writer;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache targetCache = target.getCache(name);
+        if (targetCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, key -> new BatchingCache(targetCache, writer));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+}
@@ -0,0 +1,110 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+// Least recently used entries go first once the bound is hit, skipping retained (hot) keys while
+// there are others to drop; entries also expire after a fixed time
+public class BoundedLocalCache extends AbstractValueAdaptingCache {
+    private final String name;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final Map<Object, Entry> entries;
+
+    private record Entry(Object value, Instant expiresAt) {
+    }
+
+    public BoundedLocalCache(String name, int maxEntries, Duration timeToLive, Clock clock) {
+        this(name, maxEntries, timeToLive, clock, key -> false);
+    }
+
+    public BoundedLocalCache(String name, int maxEntries, Duration timeToLive, Clock clock, Predicate<Object> retain) {
+        super(true);
+        this.name = name;
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, Entry> eldest) {
+                if (size() <= maxEntries) {
+                    return false;
+                }
+                Iterator<Object> keys = keySet().iterator();
+                while (keys.hasNext()) {
+                    if (!retain.test(keys.next())) {
+                        keys.remove();
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return entries;
+    }
+
+    @Override
+    protected synchronized Object lookup(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (clock.instant().isAfter(entry.expiresAt())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = get(key);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public synchronized void put(Object key, Object value) {
+        entries.put(key, new Entry(toStoreValue(value), clock.instant().plus(timeToLive)));
+    }
+
+    @Override
+    public synchronized void evict(Object key) {
+        entries.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,44 @@
+package org.kiril.notesapi.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "notes.cache.expiry")
+public class CacheExpiryProperties {
+    private Duration defaultTtl = Duration.ofHours(1);
+
+    // Per cache name; caches not listed use defaultTtl
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    // Each entry's TTL is randomly stretched or shortened by up to this fraction, so entries
+    // written together don't expire together
+    private double jitter = 0.1;
+
+    // Reads within this fraction of the TTL before expiry reload the entry in the background
+    private double refreshAhead = 0.2;
+
+    // How long past its TTL an entry may still be served while it is being reloaded
+    private Duration staleWindow = Duration.ofMinutes(1);
+
+    // Background reloads beyond what the pool and queue hold are dropped; the entry then expires normally
+    private int refreshThreads = 2;
+    private int refreshQueueCapacity = 100;
+
+    public Duration ttlFor(String cacheName) {
+        return ttl.getOrDefault(cacheName, defaultTtl);
+    }
+
+    // Remaining Redis TTL at or below which a read triggers a background reload
+    public Duration refreshThreshold(String cacheName) {
+        return refreshThreshold(cacheName, refreshAhead);
+    }
+
+    public Duration refreshThreshold(String cacheName, double fraction) {
+        return staleWindow.plusMillis((long) (ttlFor(cacheName).toMillis() * fraction));
+    }
+}
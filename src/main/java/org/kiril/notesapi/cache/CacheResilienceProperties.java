@@ -0,0 +1,22 @@
+package org.kiril.notesapi.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notes.cache.resilience")
+public class CacheResilienceProperties {
+    // Consecutive Redis failures that open the circuit
+    private int failureThreshold = 5;
+
+    // How long the circuit stays open before one call is let through to probe Redis
+    private Duration openDuration = Duration.ofSeconds(10);
+
+    // Per-cache bound of the local fallback used while the circuit is open
+    private int localMaxEntries = 10_000;
+
+    // Short, so nodes serving from their local copies don't drift far apart
+    private Duration localTimeToLive = Duration.ofSeconds(30);
+}
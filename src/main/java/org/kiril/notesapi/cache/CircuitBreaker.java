@@ -0,0 +1,102 @@
+package org.kiril.notesapi.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops calling Redis after a run of failures. Once the open period has passed, the recovery
+ * actions run as the probe, still while every other caller uses the local fallback, so they can
+ * repair what was missed during the outage before anyone reads from Redis again. While closed,
+ * callers only read the volatile state and the failure count, so the hot path takes no lock.
+ */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+    private final List<Runnable> recoveryActions = new CopyOnWriteArrayList<>();
+
+    // Changes only under the monitor; read without it on the closed fast path
+    private volatile State state = State.CLOSED;
+    private final AtomicInteger failures = new AtomicInteger();
+    private Instant openedAt;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    public void onRecovery(Runnable action) {
+        recoveryActions.add(action);
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // False while open. After the open period one caller probes Redis by running the recovery
+    // actions, while everyone else keeps using the fallback; if they succeed the circuit closes.
+    public boolean allowRequest() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.CLOSED) {
+                return true;
+            }
+            if (state == State.HALF_OPEN || clock.instant().isBefore(openedAt.plus(openDuration))) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        try {
+            recoveryActions.forEach(Runnable::run);
+        } catch (DataAccessException e) {
+            recordFailure(e);
+            return false;
+        }
+        synchronized (this) {
+            // The recovery may not have touched Redis at all, so one more failure reopens right away
+            failures.set(failureThreshold - 1);
+            state = State.CLOSED;
+        }
+        logger.info("Redis is reachable again, cache circuit closed");
+        return true;
+    }
+
+    // Called after every Redis call, so the count is only written when there is something to reset
+    public void recordSuccess() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+    }
+
+    public void recordFailure(RuntimeException failure) {
+        int count = failures.incrementAndGet();
+        State current = state;
+        if (current == State.OPEN || (current == State.CLOSED && count < failureThreshold)) {
+            return;
+        }
+        synchronized (this) {
+            if (state == State.HALF_OPEN || (state == State.CLOSED && failures.get() >= failureThreshold)) {
+                if (state == State.CLOSED) {
+                    logger.warn("Opening cache circuit after {} Redis failures, serving from local caches", count, failure);
+                }
+                openedAt = clock.instant();
+                state = State.OPEN;
+            }
+        }
+    }
+}
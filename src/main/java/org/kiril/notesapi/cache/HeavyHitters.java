@@ -0,0 +1,104 @@
+package org.kiril.notesapi.cache;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate access counts in fixed memory: a count-min sketch estimates how often a key was seen,
+ * and the {@code capacity} keys with the highest estimates are kept by name. Estimates never
+ * undercount, so a key that really is among the heaviest is not missed. {@link #decay()} halves all
+ * counts, letting keys that cooled down drop out.
+ */
+public class HeavyHitters {
+    private final int width;
+    private final int depth;
+    private final int capacity;
+    private final AtomicLongArray counters;
+    private final Map<Object, Long> top = new ConcurrentHashMap<>();
+    // Smallest count in a full top, below which a new key can't get in without taking the lock
+    private volatile long floor;
+
+    public record Count(Object key, long count) {
+    }
+
+    public HeavyHitters(int width, int depth, int capacity) {
+        this.width = width;
+        this.depth = depth;
+        this.capacity = capacity;
+        this.counters = new AtomicLongArray(width * depth);
+    }
+
+    public long record(Object key) {
+        int hash = spread(key.hashCode());
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(row * width + slot(hash, row)));
+        }
+
+        if (top.replace(key, estimate) == null && estimate > floor) {
+            admit(key, estimate);
+        }
+        return estimate;
+    }
+
+    public boolean isHot(Object key) {
+        return top.containsKey(key);
+    }
+
+    public List<Count> top() {
+        List<Count> counts = new ArrayList<>();
+        top.forEach((key, count) -> counts.add(new Count(key, count)));
+        counts.sort(Comparator.comparingLong(Count::count).reversed());
+        return counts;
+    }
+
+    public synchronized void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >> 1);
+        }
+        top.replaceAll((key, count) -> count >> 1);
+        top.values().removeIf(count -> count == 0);
+        floor = top.size() < capacity ? 0 : minimum().count();
+    }
+
+    private synchronized void admit(Object key, long estimate) {
+        if (top.size() >= capacity) {
+            Count coldest = minimum();
+            if (estimate <= coldest.count()) {
+                floor = coldest.count();
+                return;
+            }
+            top.remove(coldest.key());
+        }
+        top.put(key, estimate);
+        floor = top.size() < capacity ? 0 : minimum().count();
+    }
+
+    private Count minimum() {
+        Count coldest = null;
+        for (Map.Entry<Object, Long> entry : top.entrySet()) {
+            if (coldest == null || entry.getValue() < coldest.count()) {
+                coldest = new Count(entry.getKey(), entry.getValue());
+            }
+        }
+        return coldest;
+    }
+
+    // Row-specific hash derived from one base hash (Kirsch-Mitzenmacher)
+    private int slot(int hash, int row) {
+        int combined = hash + row * spread(hash ^ 0x9E3779B9);
+        return Math.floorMod(combined, width);
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 16;
+        hash *= 0x85EBCA6B;
+        hash ^= hash >>> 13;
+        hash *= 0xC2B2AE35;
+        return hash ^ (hash >>> 16);
+    }
+}
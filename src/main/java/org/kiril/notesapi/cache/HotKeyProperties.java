@@ -0,0 +1,34 @@
+package org.kiril.notesapi.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "notes.cache.hot-keys")
+public class HotKeyProperties {
+    // Caches whose reads are counted; their hottest keys are pinned locally
+    private Set<String> caches = new HashSet<>(List.of("note", "notes"));
+
+    // Keys per cache treated as hot
+    private int topKeys = 100;
+
+    // Count-min sketch size per cache; wider means fewer overestimates from colliding keys
+    private int sketchWidth = 4096;
+    private int sketchDepth = 4;
+
+    // Counts are halved this often, so yesterday's heavy users don't stay pinned
+    private Duration decayInterval = Duration.ofMinutes(1);
+
+    // Hot entries are served from memory for this long before being read from Redis again.
+    // Writes on this node drop them at once; writes on other nodes show up after this delay.
+    private Duration pinnedTimeToLive = Duration.ofSeconds(5);
+    private int pinnedMaxEntries = 1_000;
+
+    // Hot entries are reloaded when this fraction of their TTL is left instead of notes.cache.expiry.refresh-ahead
+    private double refreshAhead = 0.5;
+}
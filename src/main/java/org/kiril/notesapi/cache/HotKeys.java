@@ -0,0 +1,54 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the most read keys of the configured caches. The caches pin these keys in memory, refresh
+ * them earlier and evict them last.
+ */
+public class HotKeys {
+    private final HotKeyProperties properties;
+    private final Map<String, HeavyHitters> trackers = new ConcurrentHashMap<>();
+
+    public HotKeys(HotKeyProperties properties) {
+        this.properties = properties;
+        properties.getCaches().forEach(cacheName -> trackers.put(cacheName,
+                new HeavyHitters(properties.getSketchWidth(), properties.getSketchDepth(), properties.getTopKeys())));
+    }
+
+    public boolean tracks(String cacheName) {
+        return trackers.containsKey(cacheName);
+    }
+
+    public void record(String cacheName, Object key) {
+        HeavyHitters tracker = trackers.get(cacheName);
+        if (tracker != null) {
+            tracker.record(key);
+        }
+    }
+
+    public boolean isHot(String cacheName, Object key) {
+        HeavyHitters tracker = trackers.get(cacheName);
+        return tracker != null && tracker.isHot(key);
+    }
+
+    public Map<String, List<HeavyHitters.Count>> top() {
+        Map<String, List<HeavyHitters.Count>> top = new ConcurrentHashMap<>();
+        trackers.forEach((cacheName, tracker) -> top.put(cacheName, tracker.top()));
+        return top;
+    }
+
+    public HotKeyProperties getProperties() {
+        return properties;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.cache.hot-keys.decay-interval:PT1M}",
+            initialDelayString = "${notes.cache.hot-keys.decay-interval:PT1M}")
+    public void decay() {
+        trackers.values().forEach(HeavyHitters::decay);
+    }
+}
@@ -0,0 +1,22 @@
+package org.kiril.notesapi.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+// /actuator/hotkeys: the currently hottest keys per tracked cache with their estimated read counts
+@Component
+@Endpoint(id = "hotkeys")
+@RequiredArgsConstructor
+public class HotKeysEndpoint {
+    private final HotKeys hotKeys;
+
+    @ReadOperation
+    public Map<String, List<HeavyHitters.Count>> hotKeys() {
+        return hotKeys.top();
+    }
+}
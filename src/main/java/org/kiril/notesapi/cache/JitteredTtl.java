@@ -0,0 +1,15 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Redis TTL of an entry: the configured TTL with random jitter, plus the window it may be served stale
+public record JitteredTtl(Duration ttl, double jitter, Duration staleWindow) implements RedisCacheWriter.TtlFunction {
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-jitter, Math.nextUp(jitter));
+        return Duration.ofMillis((long) (ttl.toMillis() * factor)).plus(staleWindow);
+    }
+}
@@ -0,0 +1,107 @@
+package org.kiril.notesapi.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.dto.NoteDto;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.kiril.notesapi.config.CacheConfig.NOTE_CACHE;
+
+/**
+ * Reads and fills {@code NOTE_CACHE} for many notes at once: one MGET for the lookups and one
+ * pipeline for the back-fill. Keys and values are encoded with the cache's own configuration, so
+ * entries are interchangeable with those written by {@code @Cacheable getNote}.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteBatchCache {
+    private final CacheManager cacheManager;
+    private final RedisConnectionFactory redisConnectionFactory;
+
+    public Map<Long, NoteDto> getAll(Collection<Long> ids) {
+        Cache cache = BatchingCache.unwrap(cacheManager.getCache(NOTE_CACHE));
+        if (cache == null || ids.isEmpty()) {
+            return Map.of();
+        }
+        if (cache instanceof ResilientCache resilient && resilient.getRemote() instanceof RedisCache redisCache) {
+            return resilient.onRemote(remote -> multiGet(redisCache, ids), () -> getEach(resilient::getLocally, ids));
+        }
+        if (cache instanceof RedisCache redisCache) {
+            return multiGet(redisCache, ids);
+        }
+        return getEach(cache::get, ids);
+    }
+
+    public void putAll(Collection<NoteDto> notes) {
+        Cache cache = BatchingCache.unwrap(cacheManager.getCache(NOTE_CACHE));
+        if (cache == null || notes.isEmpty()) {
+            return;
+        }
+        if (cache instanceof ResilientCache resilient && resilient.getRemote() instanceof RedisCache redisCache) {
+            resilient.onRemote(remote -> {
+                notes.forEach(note -> resilient.unpin(note.getId()));
+                pipelinedPut(redisCache, notes);
+                return null;
+            }, () -> {
+                notes.forEach(note -> resilient.putLocally(note.getId(), note));
+                return null;
+            });
+        } else if (cache instanceof RedisCache redisCache) {
+            pipelinedPut(redisCache, notes);
+        } else {
+            notes.forEach(note -> cache.put(note.getId(), note));
+        }
+    }
+
+    private Map<Long, NoteDto> multiGet(RedisCache cache, Collection<Long> ids) {
+        List<Long> keys = List.copyOf(ids);
+        byte[][] rawKeys = keys.stream().map(id -> RedisCacheEntries.key(cache, id)).toArray(byte[][]::new);
+        List<byte[]> values;
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            values = connection.stringCommands().mGet(rawKeys);
+        }
+        Map<Long, NoteDto> hits = new HashMap<>();
+        for (int i = 0; values != null && i < keys.size(); i++) {
+            byte[] value = values.get(i);
+            // Null placeholders and entries of another shape count as misses
+            if (value != null && RedisCacheEntries.read(cache, value) instanceof NoteDto note) {
+                hits.put(keys.get(i), note);
+            }
+        }
+        return hits;
+    }
+
+    private static Map<Long, NoteDto> getEach(Function<Object, Cache.ValueWrapper> lookup, Collection<Long> ids) {
+        Map<Long, NoteDto> hits = new HashMap<>();
+        for (Long id : ids) {
+            Cache.ValueWrapper value = lookup.apply(id);
+            if (value != null && value.get() instanceof NoteDto note) {
+                hits.put(id, note);
+            }
+        }
+        return hits;
+    }
+
+    private void pipelinedPut(RedisCache cache, Collection<NoteDto> notes) {
+        try (RedisConnection connection = redisConnectionFactory.getConnection()) {
+            connection.openPipeline();
+            for (NoteDto note : notes) {
+                connection.stringCommands().set(RedisCacheEntries.key(cache, note.getId()),
+                        RedisCacheEntries.value(cache, note),
+                        RedisCacheEntries.expiration(cache, note.getId(), note), SetOption.upsert());
+            }
+            connection.closePipeline();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package org.kiril.notesapi.cache;
+
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.exception.NoteErrors;
+import org.kiril.notesapi.security.Caller;
+import org.springframework.cache.interceptor.KeyGenerator;
+
+import java.util.Set;
+
+/**
+ * Key generators for the note caches, registered under the names below. They replace SpEL keys and
+ * conditions that called back into NoteService for the caller on every evaluation; the caller is
+ * now read once from its {@link Caller}.
+ */
+public final class NoteCacheKeys {
+    public static final String OWNER_NOTES = "ownerNotesKey";
+    public static final String OWNER_NOTE_FIELDS = "ownerNoteFieldsKey";
+    public static final String NOTE_FIELDS = "noteFieldsKey";
+    public static final String CALLER_NOTES = "callerNotesKey";
+    public static final String ADMIN_NOTES = "adminNotesKey";
+    public static final String USER_NOTES = "userNotesKey";
+
+    private static final String ADMIN = "admin";
+    private static final String ADMIN_ALL = ADMIN + ":all";
+
+    private NoteCacheKeys() {
+    }
+
+    // getNotes(userId): all notes for an admin without a user id, otherwise the requested or own list
+    public static KeyGenerator ownerNotes() {
+        return (target, method, params) -> {
+            Caller caller = Caller.current();
+            Long userId = (Long) params[0];
+            return caller.admin() && userId == null ? ADMIN_ALL : userNotes(owner(caller, userId));
+        };
+    }
+
+    // getNotes(userId, fields)
+    @SuppressWarnings("unchecked")
+    public static KeyGenerator ownerNoteFields() {
+        return (target, method, params) -> {
+            Caller caller = Caller.current();
+            Long userId = (Long) params[0];
+            String fields = NoteField.key((Set<NoteField>) params[1]);
+            return caller.admin() && userId == null
+                    ? NoteFieldsCache.adminKey(fields)
+                    : NoteFieldsCache.userKey(owner(caller, userId), fields);
+        };
+    }
+
+    // getNote(id, fields): the owner is only known after loading, so entries are kept per caller and
+    // a cached note is never returned to a caller the check in NoteService has not let through
+    @SuppressWarnings("unchecked")
+    public static KeyGenerator noteFields() {
+        return (target, method, params) -> {
+            Caller caller = Caller.current();
+            String fields = NoteField.key((Set<NoteField>) params[1]);
+            return NoteFieldsCache.noteKey((Long) params[0], caller.admin() ? ADMIN : "user:" + caller.userId(), fields);
+        };
+    }
+
+    public static KeyGenerator callerNotes() {
+        return (target, method, params) -> userNotes(Caller.current().userId());
+    }
+
+    public static KeyGenerator adminNotes() {
+        return (target, method, params) -> ADMIN_ALL;
+    }
+
+    // The list of the user passed as first argument, for loads made without a caller
+    public static KeyGenerator userNotes() {
+        return (target, method, params) -> userNotes((Long) params[0]);
+    }
+
+    private static String userNotes(Long userId) {
+        return "user:" + userId;
+    }
+
+    // Refused here already, because the key is resolved before the cache is read and a cached list
+    // would otherwise be returned without reaching the check in NoteService
+    private static Long owner(Caller caller, Long userId) {
+        if (userId == null) {
+            return caller.userId();
+        }
+        if (!caller.admin() && !caller.userId().equals(userId)) {
+            throw NoteErrors.NOTES_FORBIDDEN;
+        }
+        return userId;
+    }
+}
@@ -0,0 +1,62 @@
+package org.kiril.notesapi.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.kiril.notesapi.config.CacheConfig.NOTE_FIELDS_CACHE;
+
+/**
+ * Evicts sparse fieldset entries. Their keys end with the field set, so a write has to remove
+ * every variant of the affected keys by prefix rather than a single key. Like the other cache
+ * writes, the removal waits for the surrounding transaction to commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteFieldsCache {
+    private final CacheManager cacheManager;
+    private final AfterCommitCacheWriter afterCommitCacheWriter;
+
+    public static String userKey(Long userId, String fields) {
+        return "user:" + userId + ":" + fields;
+    }
+
+    public static String adminKey(String fields) {
+        return "admin:all:" + fields;
+    }
+
+    public static String noteKey(Long noteId, String caller, String fields) {
+        return "note:" + noteId + ":" + caller + ":" + fields;
+    }
+
+    public void evict(Long userId, Long noteId) {
+        Cache cache = BatchingCache.unwrap(cacheManager.getCache(NOTE_FIELDS_CACHE));
+        if (cache == null) {
+            return;
+        }
+        ResilientCache resilient = cache instanceof ResilientCache resilientCache ? resilientCache : null;
+        Cache remote = resilient != null ? resilient.getRemote() : cache;
+        if (!(remote instanceof RedisCache redisCache)) {
+            // Other cache providers cannot remove by prefix
+            afterCommitCacheWriter.afterCommit(cache::clear);
+            return;
+        }
+        Runnable removal = () -> {
+            clean(redisCache, userKey(userId, "*"));
+            clean(redisCache, adminKey("*"));
+            if (noteId != null) {
+                clean(redisCache, "note:" + noteId + ":*");
+            }
+        };
+        afterCommitCacheWriter.afterCommit(resilient != null ? () -> resilient.invalidate(removal) : removal);
+    }
+
+    private void clean(RedisCache cache, String keyPattern) {
+        String prefix = cache.getCacheConfiguration().getKeyPrefixFor(NOTE_FIELDS_CACHE);
+        cache.getNativeCache().clean(NOTE_FIELDS_CACHE, (prefix + keyPattern).getBytes(StandardCharsets.UTF_8));
+    }
+}
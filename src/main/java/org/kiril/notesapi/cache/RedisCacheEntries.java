@@ -0,0 +1,39 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.core.types.Expiration;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+// Encodes keys, values and TTLs the way RedisCache itself does, for commands sent outside of it
+final class RedisCacheEntries {
+    private RedisCacheEntries() {
+    }
+
+    static byte[] key(RedisCache cache, Object key) {
+        RedisCacheConfiguration configuration = cache.getCacheConfiguration();
+        String cacheKey = key instanceof String value ? value : configuration.getConversionService().convert(key, String.class);
+        return toArray(configuration.getKeySerializationPair().write(configuration.getKeyPrefixFor(cache.getName()) + cacheKey));
+    }
+
+    static byte[] value(RedisCache cache, Object value) {
+        return toArray(cache.getCacheConfiguration().getValueSerializationPair().write(value));
+    }
+
+    static Object read(RedisCache cache, byte[] value) {
+        return cache.getCacheConfiguration().getValueSerializationPair().read(ByteBuffer.wrap(value));
+    }
+
+    static Expiration expiration(RedisCache cache, Object key, Object value) {
+        Duration ttl = cache.getCacheConfiguration().getTtlFunction().getTimeToLive(key, value);
+        return ttl.isZero() || ttl.isNegative() ? Expiration.persistent() : Expiration.from(ttl);
+    }
+
+    private static byte[] toArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
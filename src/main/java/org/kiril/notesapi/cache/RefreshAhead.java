@@ -0,0 +1,192 @@
+package org.kiril.notesapi.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Loading reads ({@code @Cacheable(sync = true)}) against Redis. The value and its remaining TTL come
+ * back in one pipelined round trip. Once the remaining TTL drops into the refresh window, the caller
+ * still gets the cached value and the entry is reloaded in the background with the caller's security
+ * context, inside a read-only transaction of its own, since the request's transaction is gone by
+ * then and a read-only one is what routes it to a replica. Only a missing entry makes the caller wait for the load, and concurrent misses of the same
+ * key on this node share one load, as RedisCache's own {@code sync} lock did.
+ * <p>
+ * A reload only replaces the entry it started from. A write that evicted or replaced the entry in
+ * the meantime wins, instead of being overwritten with what the reload read before that write.
+ * <p>
+ * Hot keys get priority: they enter the refresh window earlier, and only they may use the second
+ * half of the executor's queue.
+ */
+public class RefreshAhead {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshAhead.class);
+    private static final byte[] PUT_IF_UNCHANGED = """
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then
+                return 0
+            end
+            if ARGV[3] == '0' then
+                redis.call('SET', KEYS[1], ARGV[2])
+            else
+                redis.call('SET', KEYS[1], ARGV[2], 'PX', ARGV[3])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+    private final CacheExpiryProperties properties;
+    private final double hotRefreshAhead;
+    private final ThreadPoolTaskExecutor executor;
+    private final TransactionOperations readOnlyTransaction;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+    private final Map<String, CompletableFuture<Object>> loading = new ConcurrentHashMap<>();
+
+    public RefreshAhead(ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                        CacheExpiryProperties properties, double hotRefreshAhead, ThreadPoolTaskExecutor executor,
+                        TransactionOperations readOnlyTransaction) {
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.properties = properties;
+        this.hotRefreshAhead = hotRefreshAhead;
+        this.executor = executor;
+        this.readOnlyTransaction = readOnlyTransaction;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(RedisCache cache, Object key, Callable<T> loader, boolean hot) {
+        byte[] rawKey = RedisCacheEntries.key(cache, key);
+        List<Object> results;
+        try (RedisConnection connection = redisConnectionFactory.getObject().getConnection()) {
+            connection.openPipeline();
+            connection.stringCommands().get(rawKey);
+            connection.keyCommands().pTtl(rawKey);
+            results = connection.closePipeline();
+        }
+
+        byte[] stored = (byte[]) results.get(0);
+        if (stored == null) {
+            // Never cached or past its stale window, so there is nothing to serve meanwhile
+            return load(cache, key, loader);
+        }
+        long remainingMillis = ((Number) results.get(1)).longValue();
+        Duration threshold = hot
+                ? properties.refreshThreshold(cache.getName(), hotRefreshAhead)
+                : properties.refreshThreshold(cache.getName());
+        if (remainingMillis >= 0 && remainingMillis <= threshold.toMillis()) {
+            refresh(cache, key, stored, loader, hot);
+        }
+        Object value = RedisCacheEntries.read(cache, stored);
+        return value instanceof NullValue ? null : (T) value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(RedisCache cache, Object key, Callable<T> loader) {
+        String loadKey = cache.getName() + "::" + key;
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = loading.putIfAbsent(loadKey, load);
+        if (running != null) {
+            try {
+                return (T) running.join();
+            } catch (CompletionException | CancellationException e) {
+                // The failure may only apply to the caller that loaded, such as a refused access check
+                return load(cache, key, loader);
+            }
+        }
+        try {
+            T value;
+            try {
+                value = loader.call();
+            } catch (Exception e) {
+                Cache.ValueRetrievalException failure = new Cache.ValueRetrievalException(key, loader, e);
+                load.completeExceptionally(failure);
+                throw failure;
+            } catch (Error e) {
+                load.completeExceptionally(e);
+                throw e;
+            }
+            load.complete(value);
+            // Outside the loader's try, like RedisCache does it: a failed write reaches the circuit
+            // breaker as the DataAccessException it is, and the loaded value is not lost
+            cache.put(key, value);
+            return value;
+        } finally {
+            loading.remove(loadKey, load);
+        }
+    }
+
+    // One reload per key at a time; when the executor is saturated the entry simply ages out
+    private void refresh(RedisCache cache, Object key, byte[] stored, Callable<?> loader, boolean hot) {
+        if (!hot && executor.getQueueSize() * 2 >= executor.getQueueCapacity()) {
+            return;
+        }
+        String refreshKey = cache.getName() + "::" + key;
+        if (!refreshing.add(refreshKey)) {
+            return;
+        }
+        Runnable reload = () -> {
+            try {
+                Object value = readOnlyTransaction.execute(status -> call(key, loader));
+                putIfUnchanged(cache, key, stored, value);
+            } catch (Exception e) {
+                logger.warn("Background reload of {} failed", refreshKey, e);
+            } finally {
+                refreshing.remove(refreshKey);
+            }
+        };
+        try {
+            executor.execute(DelegatingSecurityContextRunnable.create(reload, null));
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(refreshKey);
+        }
+    }
+
+    private static Object call(Object key, Callable<?> loader) {
+        try {
+            return loader.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new Cache.ValueRetrievalException(key, loader, e);
+        }
+    }
+
+    // Compare-and-set in one script, so an evict or put landing between the check and the write isn't lost
+    private void putIfUnchanged(RedisCache cache, Object key, byte[] expected, Object value) {
+        if (value == null && !cache.isAllowNullValues()) {
+            return;
+        }
+        byte[] rawKey = RedisCacheEntries.key(cache, key);
+        byte[] rawValue = RedisCacheEntries.value(cache, value == null ? NullValue.INSTANCE : value);
+        Expiration expiration = RedisCacheEntries.expiration(cache, key, value);
+        byte[] ttlMillis = Long.toString(expiration.isPersistent() ? 0 : expiration.getExpirationTimeInMilliseconds())
+                .getBytes(StandardCharsets.US_ASCII);
+        Boolean written;
+        try (RedisConnection connection = redisConnectionFactory.getObject().getConnection()) {
+            written = connection.scriptingCommands().eval(PUT_IF_UNCHANGED, ReturnType.BOOLEAN, 1,
+                    rawKey, expected, rawValue, ttlMillis);
+        }
+        if (!Boolean.TRUE.equals(written)) {
+            logger.debug("Dropped background reload of {}::{}, the entry changed meanwhile", cache.getName(), key);
+        }
+    }
+}
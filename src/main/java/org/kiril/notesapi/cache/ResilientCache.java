@@ -0,0 +1,248 @@
+package org.kiril.notesapi.cache;
+
+import org.kiril.notesapi.jfr.CacheReadEvent;
+import org.springframework.cache.Cache;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Puts a {@link CircuitBreaker} in front of a Redis cache. While Redis fails, reads and writes go to
+ * a bounded local cache instead of waiting for timeouts, and every key written or evicted in the
+ * meantime is remembered. On recovery those keys are evicted from Redis, since it may still hold
+ * values from before the outage, and the local copies are dropped.
+ * <p>
+ * With {@link HotKeys}, reads are counted and the hottest keys are also served from a short-lived
+ * pinned copy in memory, saving the Redis round trip on the busiest entries.
+ */
+public class ResilientCache implements Cache {
+    private final Cache remote;
+    private final BoundedLocalCache local;
+    private final BoundedLocalCache pinned;
+    private final CircuitBreaker circuitBreaker;
+    private final RefreshAhead refreshAhead;
+    private final HotKeys hotKeys;
+    private final Set<Object> missedEvictions = ConcurrentHashMap.newKeySet();
+    private volatile boolean missedClear;
+
+    public ResilientCache(Cache remote, BoundedLocalCache local, CircuitBreaker circuitBreaker,
+                          RefreshAhead refreshAhead) {
+        this(remote, local, null, circuitBreaker, refreshAhead, null);
+    }
+
+    public ResilientCache(Cache remote, BoundedLocalCache local, BoundedLocalCache pinned,
+                          CircuitBreaker circuitBreaker, RefreshAhead refreshAhead, HotKeys hotKeys) {
+        this.remote = remote;
+        this.local = local;
+        this.pinned = pinned;
+        this.circuitBreaker = circuitBreaker;
+        this.refreshAhead = refreshAhead;
+        this.hotKeys = hotKeys;
+    }
+
+    public Cache getRemote() {
+        return remote;
+    }
+
+    // Runs a call against Redis through the circuit breaker, or the fallback when it is open or fails
+    public <T> T onRemote(Function<Cache, T> call, Supplier<T> fallback) {
+        if (circuitBreaker.allowRequest()) {
+            try {
+                T result = call.apply(remote);
+                circuitBreaker.recordSuccess();
+                return result;
+            } catch (DataAccessException e) {
+                circuitBreaker.recordFailure(e);
+            }
+        }
+        return fallback.get();
+    }
+
+    // For removals Redis can't do per key, such as by prefix; missing one clears the cache on recovery
+    public void invalidate(Runnable removal) {
+        onRemote(cache -> {
+            removal.run();
+            return null;
+        }, () -> {
+            local.clear();
+            missedClear = true;
+            return null;
+        });
+    }
+
+    public Cache.ValueWrapper getLocally(Object key) {
+        return local.get(key);
+    }
+
+    public void putLocally(Object key, Object value) {
+        unpin(key);
+        local.put(key, value);
+        missedEvictions.add(key);
+    }
+
+    public void evictLocally(Object key) {
+        unpin(key);
+        local.evict(key);
+        missedEvictions.add(key);
+    }
+
+    // Run by the circuit breaker as its probe before it closes; a Redis failure here keeps it open
+    void reconcile() {
+        if (missedClear) {
+            remote.clear();
+            missedClear = false;
+            missedEvictions.clear();
+        }
+        for (Object key : missedEvictions) {
+            remote.evict(key);
+            missedEvictions.remove(key);
+        }
+        local.clear();
+        if (pinned != null) {
+            pinned.clear();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        CacheReadEvent event = new CacheReadEvent();
+        event.begin();
+        boolean hot = recordRead(key);
+        if (hot) {
+            ValueWrapper pinnedValue = pinned.get(key);
+            if (pinnedValue != null) {
+                event.end(getName(), CacheReadEvent.PINNED);
+                return pinnedValue;
+            }
+        }
+        ValueWrapper value = onRemote(cache -> cache.get(key), () -> local.get(key));
+        if (hot && value != null) {
+            pinned.put(key, value.get());
+        }
+        event.end(getName(), value != null ? CacheReadEvent.HIT : CacheReadEvent.MISS);
+        return value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper value = get(key);
+        Object stored = value == null ? null : value.get();
+        if (stored != null && type != null && !type.isInstance(stored)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + stored);
+        }
+        return (T) stored;
+    }
+
+    // Loading reads refresh ahead of expiry while Redis is up; the loader runs at most once either way
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        CacheReadEvent event = new CacheReadEvent();
+        event.begin();
+        boolean hot = recordRead(key);
+        if (hot) {
+            ValueWrapper pinnedValue = pinned.get(key);
+            if (pinnedValue != null) {
+                event.end(getName(), CacheReadEvent.PINNED);
+                return (T) pinnedValue.get();
+            }
+        }
+        Once<T> loader = new Once<>(valueLoader);
+        T value = onRemote(cache -> refreshAhead != null && cache instanceof RedisCache redisCache
+                        ? refreshAhead.get(redisCache, key, loader, hot)
+                        : cache.get(key, loader),
+                () -> local.get(key, loader));
+        if (hot) {
+            pinned.put(key, value);
+        }
+        // A refresh ahead of expiry loads in the background and still counts as a hit
+        event.end(getName(), loader.hasRun() ? CacheReadEvent.LOAD : CacheReadEvent.HIT);
+        return value;
+    }
+
+    // Counts the read and tells whether the key is currently hot enough to be pinned
+    private boolean recordRead(Object key) {
+        if (pinned == null) {
+            return false;
+        }
+        hotKeys.record(getName(), key);
+        return hotKeys.isHot(getName(), key);
+    }
+
+    void unpin(Object key) {
+        if (pinned != null) {
+            pinned.evict(key);
+        }
+    }
+
+    // Runs the loader at most once, however many paths end up calling it
+    private static final class Once<T> implements Callable<T> {
+        private Callable<T> pending;
+        private T loaded;
+
+        private Once(Callable<T> loader) {
+            this.pending = loader;
+        }
+
+        @Override
+        public synchronized T call() throws Exception {
+            if (pending != null) {
+                loaded = pending.call();
+                pending = null;
+            }
+            return loaded;
+        }
+
+        synchronized boolean hasRun() {
+            return pending == null;
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        unpin(key);
+        onRemote(cache -> {
+            cache.put(key, value);
+            return null;
+        }, () -> {
+            putLocally(key, value);
+            return null;
+        });
+    }
+
+    @Override
+    public void evict(Object key) {
+        unpin(key);
+        onRemote(cache -> {
+            cache.evict(key);
+            return null;
+        }, () -> {
+            evictLocally(key);
+            return null;
+        });
+    }
+
+    @Override
+    public void clear() {
+        if (pinned != null) {
+            pinned.clear();
+        }
+        invalidate(remote::clear);
+    }
+}
@@ -0,0 +1,72 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+
+import java.time.Clock;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+// Wraps every Redis cache of the target in a ResilientCache sharing one circuit breaker
+public class ResilientCacheManager implements CacheManager {
+    private final CacheManager target;
+    private final CircuitBreaker circuitBreaker;
+    private final CacheResilienceProperties properties;
+    private final RefreshAhead refreshAhead;
+    private final HotKeys hotKeys;
+    private final Clock clock;
+    private final Map<String, ResilientCache> caches = new ConcurrentHashMap<>();
+
+    public ResilientCacheManager(CacheManager target, CircuitBreaker circuitBreaker,
+                                 CacheResilienceProperties properties, RefreshAhead refreshAhead, HotKeys hotKeys,
+                                 Clock clock) {
+        this.target = target;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = properties;
+        this.refreshAhead = refreshAhead;
+        this.hotKeys = hotKeys;
+        this.clock = clock;
+        circuitBreaker.onRecovery(this::reconcile);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        ResilientCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache targetCache = target.getCache(name);
+        if (!(targetCache instanceof RedisCache)) {
+            return targetCache;
+        }
+        return caches.computeIfAbsent(name, key -> createCache(name, targetCache));
+    }
+
+    // Hot keys of tracked caches are pinned, and both local caches drop cold keys first
+    private ResilientCache createCache(String name, Cache targetCache) {
+        if (hotKeys == null || !hotKeys.tracks(name)) {
+            return new ResilientCache(targetCache,
+                    new BoundedLocalCache(name, properties.getLocalMaxEntries(), properties.getLocalTimeToLive(), clock),
+                    circuitBreaker, refreshAhead);
+        }
+        Predicate<Object> hot = cacheKey -> hotKeys.isHot(name, cacheKey);
+        HotKeyProperties hotKeyProperties = hotKeys.getProperties();
+        return new ResilientCache(targetCache,
+                new BoundedLocalCache(name, properties.getLocalMaxEntries(), properties.getLocalTimeToLive(), clock, hot),
+                new BoundedLocalCache(name, hotKeyProperties.getPinnedMaxEntries(),
+                        hotKeyProperties.getPinnedTimeToLive(), clock, hot),
+                circuitBreaker, refreshAhead, hotKeys);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+
+    private void reconcile() {
+        caches.values().forEach(ResilientCache::reconcile);
+    }
+}
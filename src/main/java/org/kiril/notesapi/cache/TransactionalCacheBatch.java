@@ -0,0 +1,99 @@
+package org.kiril.notesapi.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+// The cache writes of one transaction, sent in order once it has committed
+class TransactionalCacheBatch implements TransactionSynchronization {
+    private final ObjectProvider<RedisConnectionFactory> redisConnectionFactory;
+    private final List<Operation> operations = new ArrayList<>();
+
+    TransactionalCacheBatch(ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        this.redisConnectionFactory = redisConnectionFactory;
+    }
+
+    // Either a Redis command that can share a pipeline, or an action that has to run on its own.
+    // A command for a ResilientCache is only sent while its circuit allows, otherwise the fallback runs.
+    record Operation(Consumer<RedisConnection> command, Runnable action, ResilientCache gate, Runnable fallback) {
+        static Operation pipelined(Consumer<RedisConnection> command, ResilientCache gate, Runnable fallback) {
+            return new Operation(command, null, gate, fallback);
+        }
+
+        static Operation direct(Runnable action) {
+            return new Operation(null, action, null, null);
+        }
+    }
+
+    void add(Operation operation) {
+        operations.add(operation);
+    }
+
+    void run(Operation operation) {
+        add(operation);
+        flush();
+    }
+
+    @Override
+    public void afterCommit() {
+        flush();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        operations.clear();
+    }
+
+    // Consecutive commands share one pipeline; a direct action ends it so the order is kept
+    private void flush() {
+        List<Operation> pipeline = new ArrayList<>();
+        for (Operation operation : operations) {
+            if (operation.command() != null) {
+                pipeline.add(operation);
+            } else {
+                send(pipeline);
+                operation.action().run();
+            }
+        }
+        send(pipeline);
+        operations.clear();
+    }
+
+    // All Redis caches share one circuit breaker, so any gate in the pipeline speaks for all of them
+    private void send(List<Operation> pipeline) {
+        if (pipeline.isEmpty()) {
+            return;
+        }
+        ResilientCache gate = pipeline.stream()
+                .map(Operation::gate)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+        if (gate == null) {
+            sendPipeline(pipeline);
+        } else {
+            gate.onRemote(cache -> {
+                sendPipeline(pipeline);
+                return null;
+            }, () -> {
+                pipeline.stream().map(Operation::fallback).filter(Objects::nonNull).forEach(Runnable::run);
+                return null;
+            });
+        }
+        pipeline.clear();
+    }
+
+    private void sendPipeline(List<Operation> pipeline) {
+        try (RedisConnection connection = redisConnectionFactory.getObject().getConnection()) {
+            connection.openPipeline();
+            pipeline.forEach(operation -> operation.command().accept(connection));
+            connection.closePipeline();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.kiril.notesapi.config;
+
+import org.kiril.notesapi.blob.AttachmentStore;
+import org.kiril.notesapi.blob.BlobStore;
+import org.kiril.notesapi.blob.BlobStoreProperties;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.blob.SegmentArchive;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.nio.file.Path;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(BlobStoreProperties.class)
+public class BlobStoreConfig {
+
+    // A node-local default would leave bodies that other nodes cannot read, so there is none
+    @Bean
+    @ConditionalOnProperty(name = "notes.blob.enabled", havingValue = "true")
+    public BlobStore blobStore(BlobStoreProperties properties) {
+        Path directory = properties.getDirectory();
+        if (directory == null || directory.toString().isBlank()) {
+            throw new IllegalStateException(
+                    "notes.blob.enabled=true requires notes.blob.directory (NOTES_BLOB_DIR) on a volume shared by all nodes");
+        }
+        return new BlobStore(directory);
+    }
+
+    // An attachment uploaded to one node must be downloadable from every other
+    @Bean
+    @ConditionalOnProperty(name = "notes.blob.attachments-enabled", havingValue = "true")
+    public AttachmentStore attachmentStore(BlobStoreProperties properties) {
+        Path directory = properties.getAttachmentsDirectory();
+        if (directory == null || directory.toString().isBlank()) {
+            throw new IllegalStateException(
+                    "notes.blob.attachments-enabled=true requires notes.blob.attachments-directory (NOTES_ATTACHMENTS_DIR) on a volume shared by all nodes");
+        }
+        return new AttachmentStore(directory);
+    }
+
+    // Like the blob store, archived bodies must be readable from every node
+    @Bean
+    @ConditionalOnProperty(name = "notes.archive.enabled", havingValue = "true")
+    public SegmentArchive segmentArchive(BlobStoreProperties properties) {
+        Path directory = properties.getArchiveDirectory();
+        if (directory == null || directory.toString().isBlank()) {
+            throw new IllegalStateException(
+                    "notes.archive.enabled=true requires notes.blob.archive-directory (NOTES_ARCHIVE_DIR) on a volume shared by all nodes");
+        }
+        return new SegmentArchive(directory);
+    }
+
+    @Bean
+    public NoteBodies noteBodies(ObjectProvider<BlobStore> blobStore, ObjectProvider<SegmentArchive> segmentArchive,
+                                 BlobStoreProperties properties) {
+        return new NoteBodies(blobStore.getIfAvailable(), segmentArchive.getIfAvailable(),
+                properties.getInlineThreshold().toBytes());
+    }
+}
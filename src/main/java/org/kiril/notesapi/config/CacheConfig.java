@@ -1,12 +1,137 @@
 package org.kiril.notesapi.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.kiril.notesapi.cache.AfterCommitCacheWriter;
+import org.kiril.notesapi.cache.BatchingCacheManager;
+import org.kiril.notesapi.cache.CacheExpiryProperties;
+import org.kiril.notesapi.cache.CacheResilienceProperties;
+import org.kiril.notesapi.cache.CircuitBreaker;
+import org.kiril.notesapi.cache.HotKeyProperties;
+import org.kiril.notesapi.cache.HotKeys;
+import org.kiril.notesapi.cache.NoteCacheKeys;
+import org.kiril.notesapi.cache.RefreshAhead;
+import org.kiril.notesapi.cache.ResilientCacheManager;
+import org.kiril.notesapi.service.CacheWarmupProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Clock;
+
+// The caching advice wraps the transaction advice, so a cache hit returns before a transaction (and
+// a pooled connection) is taken. Cache writes made while a transaction is active, such as those of
+// a service called from another transactional one, are still held back until it commits.
 @Configuration
-@EnableCaching
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+@EnableConfigurationProperties({CacheResilienceProperties.class, CacheExpiryProperties.class, HotKeyProperties.class,
+        CacheWarmupProperties.class})
 public class CacheConfig {
     public static final String NOTES_CACHE = "notes";
     public static final String NOTE_CACHE = "note";
     public static final String USERS_CACHE = "users";
+    public static final String NOTE_FIELDS_CACHE = "noteFields";
+
+    public static final String CACHE_CIRCUIT_METRIC = "notes.cache.circuit.open";
+
+    @Bean(NoteCacheKeys.OWNER_NOTES)
+    public KeyGenerator ownerNotesKey() {
+        return NoteCacheKeys.ownerNotes();
+    }
+
+    @Bean(NoteCacheKeys.OWNER_NOTE_FIELDS)
+    public KeyGenerator ownerNoteFieldsKey() {
+        return NoteCacheKeys.ownerNoteFields();
+    }
+
+    @Bean(NoteCacheKeys.NOTE_FIELDS)
+    public KeyGenerator noteFieldsKey() {
+        return NoteCacheKeys.noteFields();
+    }
+
+    @Bean(NoteCacheKeys.CALLER_NOTES)
+    public KeyGenerator callerNotesKey() {
+        return NoteCacheKeys.callerNotes();
+    }
+
+    @Bean(NoteCacheKeys.ADMIN_NOTES)
+    public KeyGenerator adminNotesKey() {
+        return NoteCacheKeys.adminNotes();
+    }
+
+    @Bean(NoteCacheKeys.USER_NOTES)
+    public KeyGenerator userNotesKey() {
+        return NoteCacheKeys.userNotes();
+    }
+
+    // One breaker for all caches, since they share the Redis connection
+    @Bean
+    public CircuitBreaker redisCircuitBreaker(CacheResilienceProperties properties) {
+        return new CircuitBreaker(properties.getFailureThreshold(), properties.getOpenDuration(), Clock.systemUTC());
+    }
+
+    @Bean
+    public MeterBinder cacheCircuitMetrics(CircuitBreaker redisCircuitBreaker) {
+        return registry -> Gauge.builder(CACHE_CIRCUIT_METRIC, redisCircuitBreaker,
+                        breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+                .description("1 while Redis calls are short-circuited to the local caches")
+                .register(registry);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor cacheRefreshExecutor(CacheExpiryProperties properties) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(properties.getRefreshThreads());
+        executor.setMaxPoolSize(properties.getRefreshThreads());
+        executor.setQueueCapacity(properties.getRefreshQueueCapacity());
+        executor.setThreadNamePrefix("cache-refresh-");
+        return executor;
+    }
+
+    @Bean
+    public RefreshAhead refreshAhead(ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                     CacheExpiryProperties properties, HotKeyProperties hotKeyProperties,
+                                     ThreadPoolTaskExecutor cacheRefreshExecutor,
+                                     PlatformTransactionManager transactionManager) {
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        return new RefreshAhead(redisConnectionFactory, properties, hotKeyProperties.getRefreshAhead(),
+                cacheRefreshExecutor, readOnlyTransaction);
+    }
+
+    @Bean
+    public HotKeys hotKeys(HotKeyProperties properties) {
+        return new HotKeys(properties);
+    }
+
+    // Wraps the auto-configured CacheManager: Redis calls go through the circuit breaker, and cache
+    // writes inside a transaction are sent after commit, and loading reads refresh ahead of expiry
+    @Bean
+    public static BeanPostProcessor cacheManagerPostProcessor(ObjectProvider<AfterCommitCacheWriter> writer,
+                                                              ObjectProvider<CircuitBreaker> circuitBreaker,
+                                                              ObjectProvider<CacheResilienceProperties> properties,
+                                                              ObjectProvider<RefreshAhead> refreshAhead,
+                                                              ObjectProvider<HotKeys> hotKeys) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager cacheManager && !(bean instanceof BatchingCacheManager)) {
+                    CacheManager resilient = new ResilientCacheManager(cacheManager, circuitBreaker.getObject(),
+                            properties.getObject(), refreshAhead.getObject(), hotKeys.getObject(), Clock.systemUTC());
+                    return new BatchingCacheManager(resilient, writer.getObject());
+                }
+                return bean;
+            }
+        };
+    }
 }
@@ -0,0 +1,71 @@
+package org.kiril.notesapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.datasource.DataSourceRoutingProperties;
+import org.kiril.notesapi.datasource.ReadYourWritesTracker;
+import org.kiril.notesapi.datasource.ReplicaRoutingDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Replaces the auto-configured DataSource when notes.datasource.routing.enabled=true
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(DataSourceRoutingProperties.class)
+@ConditionalOnProperty(prefix = "notes.datasource.routing", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class DataSourceRoutingConfig {
+    private final DataSourceRoutingProperties routingProperties;
+
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(routingProperties.getReadYourWritesWindow());
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                                      ReadYourWritesTracker readYourWritesTracker) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingProperties.Replica replicaProperties : routingProperties.getReplicas()) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(replicaProperties.getUrl())
+                    .username(replicaProperties.getUsername())
+                    .password(replicaProperties.getPassword())
+                    .build();
+            replica.setPoolName("replica-" + replicas.size());
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+
+        return new ReplicaRoutingDataSource(primary, replicas,
+                routingProperties.getStrategy(),
+                readYourWritesTracker,
+                (int) routingProperties.getHealthCheckTimeout().toSeconds());
+    }
+
+    // With sharding enabled, ShardingConfig wraps the routing data source as its primary shard instead
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "notes.sharding", name = "enabled", havingValue = "false", matchIfMissing = true)
+    public DataSource dataSource(ReplicaRoutingDataSource routingDataSource) {
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
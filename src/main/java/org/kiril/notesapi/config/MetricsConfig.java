@@ -0,0 +1,23 @@
+package org.kiril.notesapi.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kiril.notesapi.profiling.RequestProfilingProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(RequestProfilingProperties.class)
+public class MetricsConfig {
+    public static final String SERVICE_METRIC = "notes.service";
+    public static final String JWT_VERIFICATION_METRIC = "notes.jwt.verification";
+    public static final String REQUEST_ALLOCATION_METRIC = "notes.request.allocation";
+    public static final String REQUEST_CPU_METRIC = "notes.request.cpu";
+
+    // Enables @Timed on the service classes
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,68 @@
+package org.kiril.notesapi.config;
+
+import org.kiril.notesapi.cache.HeavyHitters;
+import org.kiril.notesapi.dto.AdminRegisterRequestDto;
+import org.kiril.notesapi.dto.AttachmentDto;
+import org.kiril.notesapi.dto.AuthRequestDto;
+import org.kiril.notesapi.dto.AuthResponseDto;
+import org.kiril.notesapi.dto.NoteContentPatchDto;
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteRevisionDto;
+import org.kiril.notesapi.dto.RegisterRequestDto;
+import org.kiril.notesapi.dto.UserDto;
+import org.kiril.notesapi.exception.ProblemResponse;
+import org.kiril.notesapi.model.Attachment;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.NoteChange;
+import org.kiril.notesapi.model.NoteRevision;
+import org.kiril.notesapi.model.User;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Reflection the AOT engine can't infer, for the fast-startup and native builds. Controller
+ * signatures are covered by Spring itself; these types are also read and written by Jackson in the
+ * Redis caches and the actuator, or instantiated by name.
+ */
+public class NotesApiRuntimeHints implements RuntimeHintsRegistrar {
+    // Lombok-generated accessors and constructors are only found by Jackson through reflection
+    static final Class<?>[] JSON_TYPES = {
+            NoteDto.class, UserDto.class, NoteRevisionDto.class, AttachmentDto.class, NoteContentPatchDto.class,
+            AuthRequestDto.class, AuthResponseDto.class, RegisterRequestDto.class, AdminRegisterRequestDto.class,
+            HeavyHitters.Count.class, ProblemResponse.class};
+
+    static final Class<?>[] ENTITIES = {Note.class, User.class, NoteRevision.class, Attachment.class, NoteChange.class};
+
+    // jjwt 0.11 creates its implementation by class name and finds the Jackson (de)serializer
+    // through ServiceLoader, neither of which is visible to the native image analysis
+    static final String[] JJWT_TYPES = {
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"};
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), JSON_TYPES);
+
+        // Hibernate reads and writes entity fields directly and proxies entities for lazy loading
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity, MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+
+        for (String type : JJWT_TYPES) {
+            hints.reflection().registerType(TypeReference.of(type), MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS);
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.Serializer");
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.Deserializer");
+    }
+}
@@ -0,0 +1,33 @@
+package org.kiril.notesapi.config;
+
+import org.kiril.notesapi.readmodel.NoteJournal;
+import org.kiril.notesapi.readmodel.NoteReadModel;
+import org.kiril.notesapi.readmodel.ReadModelProperties;
+import org.kiril.notesapi.readmodel.ReadModelSnapshots;
+import org.kiril.notesapi.repository.NoteChangeRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+// The journal and the model always exist; while disabled the journal records nothing and the
+// model never becomes ready, so NoteService keeps reading from the database
+@Configuration
+@EnableConfigurationProperties(ReadModelProperties.class)
+public class ReadModelConfig {
+
+    @Bean
+    public NoteReadModel noteReadModel(ReadModelProperties properties) {
+        return new NoteReadModel(properties.getMaxBodyMemory().toBytes());
+    }
+
+    @Bean
+    public NoteJournal noteJournal(NoteChangeRepository noteChangeRepository, NoteReadModel noteReadModel,
+                                   ReadModelProperties properties) {
+        return new NoteJournal(noteChangeRepository, noteReadModel, properties.isEnabled());
+    }
+
+    @Bean
+    public ReadModelSnapshots readModelSnapshots(ReadModelProperties properties) {
+        return new ReadModelSnapshots(properties.getSnapshotDirectory());
+    }
+}
@@ -3,9 +3,15 @@ package org.kiril.notesapi.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.kiril.notesapi.cache.CacheExpiryProperties;
+import org.kiril.notesapi.cache.JitteredTtl;
+import org.springframework.boot.autoconfigure.cache.RedisCacheManagerBuilderCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.BatchStrategies;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -14,14 +20,16 @@ import java.time.Duration;
 
 @Configuration
 public class RedisConfig {
+    // Cached entries keep a private mapper so their stored form doesn't change with spring.jackson.*;
+    // the application's ObjectMapper is Boot's, built like the Smile and CBOR ones
     @Bean
-    public RedisCacheConfiguration cacheConfiguration() {
+    public RedisCacheConfiguration cacheConfiguration(CacheExpiryProperties expiry) {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
         return RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofHours(1))
+                .entryTtl(entryTtl(expiry, expiry.getDefaultTtl()))
                 .computePrefixWith(cacheName -> cacheName + "::")
                 .serializeKeysWith(
                         SerializationPair.fromSerializer(new StringRedisSerializer()))
@@ -30,13 +38,22 @@ public class RedisConfig {
                                 new GenericJackson2JsonRedisSerializer(mapper)));
     }
 
+    // Prefix evictions use SCAN in batches instead of a blocking KEYS over the whole keyspace
     @Bean
-    public ObjectMapper objectMapper() {
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.registerModule(new JavaTimeModule());
-        mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
-        return mapper;
+    public RedisCacheManagerBuilderCustomizer scanningCacheWriter(RedisConnectionFactory connectionFactory) {
+        return builder -> builder.cacheWriter(
+                RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory, BatchStrategies.scan(1000)));
     }
-}
 
+    // Caches with their own TTL keep the shared serialization and only swap the expiry
+    @Bean
+    public RedisCacheManagerBuilderCustomizer perCacheTtl(RedisCacheConfiguration cacheConfiguration,
+                                                          CacheExpiryProperties expiry) {
+        return builder -> expiry.getTtl().forEach((cacheName, ttl) -> builder.withCacheConfiguration(
+                cacheName, cacheConfiguration.entryTtl(entryTtl(expiry, ttl))));
+    }
 
+    private static JitteredTtl entryTtl(CacheExpiryProperties expiry, Duration ttl) {
+        return new JitteredTtl(ttl, expiry.getJitter(), expiry.getStaleWindow());
+    }
+}
@@ -0,0 +1,11 @@
+package org.kiril.notesapi.config;
+
+import org.kiril.notesapi.service.NoteArchiveProperties;
+import org.kiril.notesapi.service.NoteRevisionProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({NoteRevisionProperties.class, NoteArchiveProperties.class})
+public class RevisionConfig {
+}
@@ -1,7 +1,9 @@
 package org.kiril.notesapi.config;
 
 import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.jfr.RecordingPasswordEncoder;
 import org.kiril.notesapi.security.jwt.JwtAuthenticationFilter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,6 +19,7 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -32,6 +35,10 @@ public class SecurityConfig {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final UserDetailsService userDetailsService;
 
+    // Set when actuator is served on its own port (see application-prod.yml); -1 otherwise
+    @Value("${management.server.port:-1}")
+    private int managementPort;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
@@ -42,6 +49,10 @@ public class SecurityConfig {
                 )
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/login", "/api/auth/register", "/error").permitAll()
+                        .requestMatchers("/actuator/health/**").permitAll()
+                        .requestMatchers(scrapeOnManagementPort()).permitAll()
+                        .requestMatchers("/actuator/prometheus", "/actuator/hotkeys", "/actuator/requestprofile")
+                        .hasRole("ADMIN")
                         .requestMatchers("/api/auth/register/admin").hasRole("ADMIN")
                         .requestMatchers("/api/users").hasRole("ADMIN")
                         .anyRequest().authenticated()
@@ -52,9 +63,20 @@ public class SecurityConfig {
         return http.build();
     }
 
+    /**
+     * Prometheus scrapes without a token, but only on the management port, which is not exposed
+     * publicly. On the application port the scrape endpoint needs an admin like the other
+     * actuator endpoints.
+     */
+    private RequestMatcher scrapeOnManagementPort() {
+        return request -> managementPort > 0
+                && request.getLocalPort() == managementPort
+                && "/actuator/prometheus".equals(request.getRequestURI());
+    }
+
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new RecordingPasswordEncoder(new BCryptPasswordEncoder());
     }
 
     @Bean
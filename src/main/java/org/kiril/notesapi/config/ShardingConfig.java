@@ -0,0 +1,93 @@
+package org.kiril.notesapi.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.flywaydb.core.Flyway;
+import org.kiril.notesapi.datasource.ReplicaRoutingDataSource;
+import org.kiril.notesapi.datasource.ShardDirectory;
+import org.kiril.notesapi.datasource.ShardFence;
+import org.kiril.notesapi.datasource.ShardRouter;
+import org.kiril.notesapi.datasource.ShardRoutingDataSource;
+import org.kiril.notesapi.datasource.ShardingProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Shards notes by user id when notes.sharding.enabled=true; the primary keeps users and shard assignments
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "notes.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardingConfig {
+    private final ShardingProperties shardingProperties;
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                         ObjectProvider<ReplicaRoutingDataSource> replicaRouting) {
+        // With replica routing enabled the primary shard still sends read-only work to replicas
+        DataSource primary = replicaRouting.getIfAvailable(() -> dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build());
+
+        Map<String, DataSource> shards = new LinkedHashMap<>();
+        shards.put(ShardRouter.PRIMARY_SHARD, primary);
+        for (ShardingProperties.Shard shardProperties : shardingProperties.getShards()) {
+            HikariDataSource shard = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(dataSourceProperties.determineDriverClassName())
+                    .url(shardProperties.getUrl())
+                    .username(shardProperties.getUsername())
+                    .password(shardProperties.getPassword())
+                    .build();
+            shard.setPoolName("shard-" + shardProperties.getName());
+            migrateShard(shard, shardProperties);
+            shards.put(shardProperties.getName(), shard);
+        }
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ShardRouter shardRouter(ShardRoutingDataSource shardRoutingDataSource) {
+        return new ShardRouter(shardRoutingDataSource.getShardNames());
+    }
+
+    @Bean
+    public ShardDirectory shardDirectory(ShardRoutingDataSource shardRoutingDataSource, ShardRouter shardRouter) {
+        JdbcTemplate primary = new JdbcTemplate(shardRoutingDataSource.getShard(ShardRouter.PRIMARY_SHARD));
+        return new ShardDirectory(primary, shardRouter);
+    }
+
+    @Bean
+    public ShardFence shardFence(DataSource dataSource, ShardRoutingDataSource shardRoutingDataSource,
+                                 ShardRouter shardRouter) {
+        return new ShardFence(dataSource, shardRoutingDataSource, shardRouter);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    private void migrateShard(DataSource shard, ShardingProperties.Shard shardProperties) {
+        Flyway.configure()
+                .dataSource(shard)
+                .locations("classpath:db/shard")
+                .placeholders(Map.of("idStart", String.valueOf(shardProperties.getIdStart())))
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,55 @@
+package org.kiril.notesapi.controller;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.dto.AttachmentDto;
+import org.kiril.notesapi.service.AttachmentService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+
+// The request body is the raw file, read as a stream rather than through multipart or JSON
+@RestController
+@RequestMapping("/api/notes/{noteId}/attachments")
+@RequiredArgsConstructor
+public class AttachmentController {
+    private final AttachmentService attachmentService;
+
+    @PostMapping
+    public ResponseEntity<AttachmentDto> uploadAttachment(@PathVariable Long noteId,
+                                                          @RequestParam String filename,
+                                                          @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+                                                          HttpServletRequest request) throws IOException {
+        AttachmentDto created = attachmentService.upload(noteId, filename, contentType, request.getInputStream());
+        return ResponseEntity
+                .created(URI.create("/api/notes/" + noteId + "/attachments/" + created.getId()))
+                .body(created);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<AttachmentDto>> getAttachments(@PathVariable Long noteId) {
+        return ResponseEntity.ok(attachmentService.getAttachments(noteId));
+    }
+
+    @GetMapping("/{attachmentId}")
+    public void downloadAttachment(@PathVariable Long noteId,
+                                   @PathVariable Long attachmentId,
+                                   HttpServletRequest request,
+                                   HttpServletResponse response) throws IOException {
+        AttachmentService.Download download = attachmentService.getDownload(noteId, attachmentId);
+        AttachmentDto attachment = download.attachment();
+        FileDownload.send(request, response, download.path(), attachment.getSize(),
+                attachment.getSha256(), attachment.getContentType(), attachment.getFilename());
+    }
+
+    @DeleteMapping("/{attachmentId}")
+    public ResponseEntity<Void> deleteAttachment(@PathVariable Long noteId, @PathVariable Long attachmentId) {
+        attachmentService.deleteAttachment(noteId, attachmentId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -1,11 +1,16 @@
 package org.kiril.notesapi.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.dto.NoteContentPatchDto;
 import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
 import org.kiril.notesapi.service.NoteService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.util.List;
@@ -16,17 +21,49 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class NoteController {
     private final NoteService noteService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<List<NoteDto>> getNotes(@RequestParam(required = false) Long userId) {
         return ResponseEntity.ok(noteService.getNotes(userId));
     }
 
+    @GetMapping(params = "fields")
+    public ResponseEntity<List<NoteDto>> getNotes(@RequestParam(required = false) Long userId,
+                                                  @RequestParam String fields) {
+        return ResponseEntity.ok(noteService.getNotes(userId, NoteField.parse(fields)));
+    }
+
+    @GetMapping(params = {"ids", "!fields"})
+    public ResponseEntity<List<NoteDto>> getNotesByIds(@RequestParam List<Long> ids) {
+        return ResponseEntity.ok(noteService.getNotesByIds(ids));
+    }
+
+    // Same as ?ids= for id lists too long for a query string
+    @PostMapping("/lookup")
+    public ResponseEntity<List<NoteDto>> lookupNotes(@RequestBody List<Long> ids) {
+        return ResponseEntity.ok(noteService.getNotesByIds(ids));
+    }
+
+    @GetMapping(params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamNotes(@RequestParam(required = false) Long userId) {
+        Long ownerId = noteService.streamOwner(userId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(StreamingJson.<NoteDto>array(objectMapper,
+                        consumer -> noteService.streamNotes(ownerId, consumer)));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<NoteDto> getNote(@PathVariable Long id) {
         return ResponseEntity.ok(noteService.getNote(id));
     }
 
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<NoteDto> getNote(@PathVariable Long id, @RequestParam String fields) {
+        return ResponseEntity.ok(noteService.getNote(id, NoteField.parse(fields)));
+    }
+
     @PostMapping
     public ResponseEntity<NoteDto> createNote(@Valid @RequestBody NoteDto noteDto) {
         NoteDto created = noteService.createNote(noteDto);
@@ -47,6 +84,13 @@ public class NoteController {
         return ResponseEntity.ok(noteService.partialUpdateNote(id, updates));
     }
 
+    // Applies text edits to the body; the response leaves the content out
+    @PatchMapping("/{id}/content")
+    public ResponseEntity<NoteDto> patchNoteContent(@PathVariable Long id,
+                                                    @Valid @RequestBody NoteContentPatchDto patch) {
+        return ResponseEntity.ok(noteService.patchNoteContent(id, patch));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteNote(@PathVariable Long id) {
         noteService.deleteNote(id);
@@ -0,0 +1,32 @@
+package org.kiril.notesapi.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.dto.NoteRevisionDto;
+import org.kiril.notesapi.service.NoteRevisionService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.PagedModel;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/notes/{noteId}/revisions")
+@RequiredArgsConstructor
+public class NoteRevisionController {
+    private final NoteRevisionService noteRevisionService;
+
+    // Newest first, without content
+    @GetMapping
+    public ResponseEntity<PagedModel<NoteRevisionDto>> getRevisions(@PathVariable Long noteId,
+                                                                   @PageableDefault(size = 20) Pageable pageable) {
+        return ResponseEntity.ok(new PagedModel<>(noteRevisionService.getRevisions(noteId, pageable)));
+    }
+
+    @GetMapping("/{revision}")
+    public ResponseEntity<NoteRevisionDto> getRevision(@PathVariable Long noteId, @PathVariable long revision) {
+        return ResponseEntity.ok(noteRevisionService.getRevision(noteId, revision));
+    }
+}
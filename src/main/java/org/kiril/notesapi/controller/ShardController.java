@@ -0,0 +1,45 @@
+package org.kiril.notesapi.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.datasource.ShardRouter;
+import org.kiril.notesapi.service.ShardRebalancer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+@ConditionalOnProperty(prefix = "notes.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardController {
+    private final ShardRebalancer shardRebalancer;
+    private final ShardRouter shardRouter;
+
+    // The move outlasts the request, so it is only started here; poll the user's shard to see it finish
+    @PostMapping("/users/{userId}/move")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> moveUser(@PathVariable Long userId,
+                                                        @RequestParam String targetShard) {
+        if (!shardRebalancer.startMove(userId, targetShard)) {
+            return ResponseEntity.ok(Map.of("userId", userId, "shard", targetShard));
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/admin/shards/users/" + userId))
+                .body(Map.of("userId", userId, "targetShard", targetShard));
+    }
+
+    @GetMapping("/users/{userId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getUserShard(@PathVariable Long userId) {
+        return ResponseEntity.ok(Map.of("userId", userId, "shard", shardRouter.shardFor(userId)));
+    }
+}
@@ -0,0 +1,39 @@
+package org.kiril.notesapi.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes a JSON array element by element as the producer hands items over, instead of buffering a
+ * list. The status is already sent when the producer runs, so access checks belong before the body
+ * is built. If the producer fails, the array is left open and the exception propagates, aborting
+ * the response instead of ending a truncated listing with a clean {@code ]}.
+ */
+final class StreamingJson {
+
+    private StreamingJson() {
+    }
+
+    static <T> StreamingResponseBody array(ObjectMapper objectMapper, Consumer<Consumer<T>> producer) {
+        return outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            generator.writeStartArray();
+            producer.accept(item -> {
+                try {
+                    generator.writeObject(item);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndArray();
+            // Only reached after the last item; a failed stream is never closed, and so never completed
+            generator.close();
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package org.kiril.notesapi.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers which users wrote recently so their reads stay on the primary until replicas
+ * have had time to catch up. State is per node.
+ */
+public class ReadYourWritesTracker {
+    private final long windowNanos;
+    private final Map<Long, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+
+    public void recordWrite(Long userId) {
+        lastWrites.put(userId, System.nanoTime());
+    }
+
+    public boolean isPinned(Long userId) {
+        Long lastWrite = lastWrites.get(userId);
+        return lastWrite != null && System.nanoTime() - lastWrite < windowNanos;
+    }
+
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        lastWrites.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+}
@@ -0,0 +1,29 @@
+package org.kiril.notesapi.datasource;
+
+import java.util.function.Supplier;
+
+// Holds the shard the current thread's next connection should come from
+public final class ShardContext {
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T callOn(String shardName, Supplier<T> action) {
+        String previous = CURRENT.get();
+        CURRENT.set(shardName);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.kiril.notesapi.datasource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Persists explicit user-to-shard assignments on the primary and keeps the router in sync
+public class ShardDirectory {
+    private final JdbcTemplate primary;
+    private final ShardRouter shardRouter;
+
+    public ShardDirectory(JdbcTemplate primary, ShardRouter shardRouter) {
+        this.primary = primary;
+        this.shardRouter = shardRouter;
+    }
+
+    @Scheduled(fixedDelayString = "${notes.sharding.assignment-refresh-interval:PT10S}")
+    public void refresh() {
+        Map<Long, String> assignments = new HashMap<>();
+        primary.query("SELECT user_id, shard FROM user_shard_assignments",
+                rs -> {
+                    assignments.put(rs.getLong("user_id"), rs.getString("shard"));
+                });
+        shardRouter.setAssignments(assignments);
+    }
+
+    public void assign(Long userId, String shardName) {
+        int updated = primary.update("UPDATE user_shard_assignments SET shard = ? WHERE user_id = ?",
+                shardName, userId);
+        if (updated == 0) {
+            primary.update("INSERT INTO user_shard_assignments (user_id, shard) VALUES (?, ?)",
+                    userId, shardName);
+        }
+        shardRouter.assign(userId, shardName);
+    }
+}
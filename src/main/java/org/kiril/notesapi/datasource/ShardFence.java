@@ -0,0 +1,72 @@
+package org.kiril.notesapi.datasource;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps writes off the shard a user's notes are being moved away from. The rebalancer raises a
+ * fence row on the source shard and then takes the user's advisory lock exclusively, which waits
+ * for every write transaction that got past the check before the fence was visible. Writes take
+ * the same lock shared and check the fence first, so they either finish before the copy starts or
+ * are refused. Reads are not checked: the rebalancer keeps the old copy for one assignment refresh
+ * interval after the move, by which time every node reads from the new shard. Requires Postgres.
+ */
+public class ShardFence {
+    private final JdbcTemplate transactional;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ShardRouter shardRouter;
+
+    // dataSource must be the one transactions bind to, so checks run on the transaction's connection
+    public ShardFence(DataSource dataSource, ShardRoutingDataSource shardRoutingDataSource, ShardRouter shardRouter) {
+        this.transactional = new JdbcTemplate(dataSource);
+        this.shardRoutingDataSource = shardRoutingDataSource;
+        this.shardRouter = shardRouter;
+    }
+
+    // Runs first in a write transaction on the user's shard and keeps its shared lock until it commits
+    public void check(Long userId) {
+        transactional.queryForList("SELECT pg_advisory_xact_lock_shared(?)", userId);
+        List<Map<String, Object>> fences =
+                transactional.queryForList("SELECT shard, moved FROM user_fences WHERE user_id = ?", userId);
+        if (fences.isEmpty()) {
+            return;
+        }
+        Map<String, Object> fence = fences.get(0);
+        if (Boolean.TRUE.equals(fence.get("moved"))) {
+            // Route the retry to the new shard without waiting for the next refresh
+            shardRouter.assign(userId, (String) fence.get("shard"));
+        }
+        throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                "Your notes are being moved, please retry shortly.");
+    }
+
+    // Refuses further writes on the shard and returns once none is still running
+    public void raise(String shardName, Long userId, String targetShard) {
+        JdbcTemplate shard = new JdbcTemplate(shardRoutingDataSource.getShard(shardName));
+        try {
+            shard.update("INSERT INTO user_fences (user_id, shard) VALUES (?, ?)", userId, targetShard);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("Notes of user " + userId + " are already being moved", e);
+        }
+        // In autocommit the lock is released as soon as it is granted; only the wait matters
+        shard.queryForList("SELECT pg_advisory_xact_lock(?)", userId);
+    }
+
+    // The user's notes now live elsewhere; writers that still come here are redirected
+    public void markMoved(String shardName, Long userId) {
+        new JdbcTemplate(shardRoutingDataSource.getShard(shardName))
+                .update("UPDATE user_fences SET moved = TRUE WHERE user_id = ?", userId);
+    }
+
+    // Lifts the fence after a failed move, or the one an earlier move left on the new target
+    public void lower(String shardName, Long userId) {
+        new JdbcTemplate(shardRoutingDataSource.getShard(shardName))
+                .update("DELETE FROM user_fences WHERE user_id = ?", userId);
+    }
+}
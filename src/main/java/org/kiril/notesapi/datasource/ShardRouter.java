@@ -0,0 +1,98 @@
+package org.kiril.notesapi.datasource;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maps a user id to the shard holding their notes using a consistent-hash ring, so adding a
+ * shard only moves the users whose ring segment it takes over. Explicit assignments written
+ * by the rebalancer take precedence over the ring.
+ */
+public class ShardRouter {
+    public static final String PRIMARY_SHARD = "primary";
+
+    private static final int VIRTUAL_NODES_PER_SHARD = 160;
+
+    private final NavigableMap<Long, String> ring = new TreeMap<>();
+    private final List<String> shardNames;
+    private volatile Map<Long, String> assignments = Map.of();
+    private final Set<Long> movingUsers = ConcurrentHashMap.newKeySet();
+
+    public ShardRouter(Collection<String> shardNames) {
+        if (shardNames.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard is required");
+        }
+        this.shardNames = List.copyOf(shardNames);
+        for (String shardName : this.shardNames) {
+            for (int i = 0; i < VIRTUAL_NODES_PER_SHARD; i++) {
+                ring.put(hash(shardName + "#" + i), shardName);
+            }
+        }
+    }
+
+    public String shardFor(Long userId) {
+        String assigned = assignments.get(userId);
+        return assigned != null ? assigned : ringShardFor(userId);
+    }
+
+    public String ringShardFor(Long userId) {
+        Map.Entry<Long, String> entry = ring.ceilingEntry(hash("user:" + userId));
+        return (entry != null ? entry : ring.firstEntry()).getValue();
+    }
+
+    public List<String> getShardNames() {
+        return shardNames;
+    }
+
+    public boolean hasShard(String shardName) {
+        return shardNames.contains(shardName);
+    }
+
+    public void setAssignments(Map<Long, String> assignments) {
+        this.assignments = Map.copyOf(assignments);
+    }
+
+    public synchronized void assign(Long userId, String shardName) {
+        Map<Long, String> updated = new HashMap<>(assignments);
+        updated.put(userId, shardName);
+        assignments = Map.copyOf(updated);
+    }
+
+    // Marks a move in progress on this node, which refuses the user's writes without asking the
+    // shard; ShardFence does the same for every node
+    public void beginMove(Long userId) {
+        if (!movingUsers.add(userId)) {
+            throw new IllegalStateException("Notes of user " + userId + " are already being moved");
+        }
+    }
+
+    public void endMove(Long userId) {
+        movingUsers.remove(userId);
+    }
+
+    public boolean isMoving(Long userId) {
+        return movingUsers.contains(userId);
+    }
+
+    static long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.kiril.notesapi.datasource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes connections to the shard set in {@link ShardContext}. Without a shard in context,
+ * connections go to the primary, which also holds the users table. Like the replica router it
+ * must sit behind a LazyConnectionDataSourceProxy.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+    private final Map<String, DataSource> shards;
+
+    public ShardRoutingDataSource(Map<String, DataSource> shards) {
+        if (!shards.containsKey(ShardRouter.PRIMARY_SHARD)) {
+            throw new IllegalArgumentException("The primary shard must be configured");
+        }
+        this.shards = new LinkedHashMap<>(shards);
+        setTargetDataSources(new HashMap<>(shards));
+        setDefaultTargetDataSource(shards.get(ShardRouter.PRIMARY_SHARD));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+
+    public List<String> getShardNames() {
+        return List.copyOf(shards.keySet());
+    }
+
+    public DataSource getShard(String shardName) {
+        DataSource shard = shards.get(shardName);
+        if (shard == null) {
+            throw new IllegalArgumentException("Unknown shard: " + shardName);
+        }
+        return shard;
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (DataSource shard : shards.values()) {
+            if (shard instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.kiril.notesapi.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "notes.sharding")
+public class ShardingProperties {
+    private boolean enabled;
+
+    // How often each node reloads the explicit user-to-shard assignments
+    private Duration assignmentRefreshInterval = Duration.ofSeconds(10);
+
+    // Shards in addition to the primary, which is always part of the ring
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+
+        // First note id on this shard; ranges must not overlap so ids stay globally unique
+        private long idStart;
+    }
+}
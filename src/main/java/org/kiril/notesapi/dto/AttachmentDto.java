@@ -0,0 +1,16 @@
+package org.kiril.notesapi.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+public class AttachmentDto {
+    private Long id;
+    private Long noteId;
+    private String filename;
+    private String contentType;
+    private long size;
+    private String sha256;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,19 @@
+package org.kiril.notesapi.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import org.kiril.notesapi.text.TextEdit;
+
+import java.util.List;
+
+@Data
+public class NoteContentPatchDto {
+    // The note version the edits were made against
+    @NotNull(message = "Base version is required")
+    private Long baseVersion;
+
+    @NotEmpty(message = "At least one edit is required")
+    private List<@Valid TextEdit> edits;
+}
@@ -1,5 +1,6 @@
 package org.kiril.notesapi.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
@@ -8,7 +9,9 @@ import java.time.LocalDateTime;
 import java.io.Serial;
 import java.io.Serializable;
 
+// Properties left out of a sparse fieldset are null and omitted from the response
 @Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class NoteDto implements Serializable{
     @Serial
     private static final long serialVersionUID = 1L;
@@ -23,4 +26,5 @@ public class NoteDto implements Serializable{
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Long userId;
+    private Long version;
 }
\ No newline at end of file
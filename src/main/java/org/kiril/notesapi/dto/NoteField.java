@@ -0,0 +1,58 @@
+package org.kiril.notesapi.dto;
+
+import org.kiril.notesapi.exception.ApiException;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// NoteDto properties that can be requested with ?fields=
+public enum NoteField {
+    ID("id"),
+    TITLE("title"),
+    CONTENT("content"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt"),
+    USER_ID("userId"),
+    VERSION("version");
+
+    private final String property;
+
+    NoteField(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    // Parses a comma-separated list of properties; the id is always included
+    public static Set<NoteField> parse(String fields) {
+        EnumSet<NoteField> parsed = EnumSet.of(ID);
+        for (String property : fields.split(",")) {
+            String trimmed = property.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            parsed.add(fromProperty(trimmed));
+        }
+        return Collections.unmodifiableSet(parsed);
+    }
+
+    // Canonical form used in cache keys, independent of the order the client asked in
+    public static String key(Set<NoteField> fields) {
+        return EnumSet.copyOf(fields).stream()
+                .map(NoteField::getProperty)
+                .collect(Collectors.joining(","));
+    }
+
+    private static NoteField fromProperty(String property) {
+        for (NoteField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw ApiException.badRequest("Unknown note field: " + property);
+    }
+}
@@ -0,0 +1,24 @@
+package org.kiril.notesapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// Listings leave the content out; it is only reconstructed for a single revision
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class NoteRevisionDto {
+    private Long revision;
+    private String title;
+    private String content;
+    private LocalDateTime createdAt;
+
+    public NoteRevisionDto(Long revision, String title, LocalDateTime createdAt) {
+        this(revision, title, null, createdAt);
+    }
+}
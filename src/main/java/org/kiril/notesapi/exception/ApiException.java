@@ -0,0 +1,48 @@
+package org.kiril.notesapi.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * An expected 4xx outcome, such as a refused access check or a missing note. These are routine
+ * control flow, so the exception records no stack trace and no suppressed exceptions, and builds its
+ * response body once. Instances with a fixed reason are immutable and can be thrown again and again.
+ */
+public class ApiException extends RuntimeException {
+    private final HttpStatus status;
+    private final ProblemResponse problem;
+
+    public ApiException(HttpStatus status, String reason) {
+        super(reason, null, false, false);
+        this.status = status;
+        this.problem = ProblemResponse.of(status, reason);
+    }
+
+    public static ApiException badRequest(String reason) {
+        return new ApiException(HttpStatus.BAD_REQUEST, reason);
+    }
+
+    public static ApiException forbidden(String reason) {
+        return new ApiException(HttpStatus.FORBIDDEN, reason);
+    }
+
+    public static ApiException notFound(String reason) {
+        return new ApiException(HttpStatus.NOT_FOUND, reason);
+    }
+
+    public static ApiException conflict(String reason) {
+        return new ApiException(HttpStatus.CONFLICT, reason);
+    }
+
+    public HttpStatusCode getStatusCode() {
+        return status;
+    }
+
+    public String getReason() {
+        return getMessage();
+    }
+
+    public ProblemResponse getProblem() {
+        return problem;
+    }
+}
@@ -1,6 +1,11 @@
 package org.kiril.notesapi.exception;
 
+import org.kiril.notesapi.model.Note;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -8,42 +13,68 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.util.HashMap;
-import java.util.Map;
-
+// Every error is answered with an RFC 7807 problem body; fixed ones are built once
 @RestControllerAdvice
 public class GlobalExceptionHandler {
+    private static final HttpHeaders PROBLEM_HEADERS = problemHeaders();
+
+    private static final ProblemResponse DUPLICATE_TITLE =
+            ProblemResponse.of(HttpStatus.BAD_REQUEST, "You already have a note with this title.");
+    private static final ProblemResponse CONFLICTING_DATA =
+            ProblemResponse.of(HttpStatus.BAD_REQUEST, "The request conflicts with existing data");
+    private static final ProblemResponse CONCURRENT_UPDATE =
+            ProblemResponse.of(HttpStatus.CONFLICT, "The note was modified concurrently, please reload it and retry");
+    private static final ProblemResponse UNEXPECTED_ERROR =
+            ProblemResponse.of(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred");
 
     // Handles validation errors (@Valid or @NotBlank issues)
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<Map<String, Object>> handleValidationErrors(MethodArgumentNotValidException ex) {
+    public ResponseEntity<ProblemResponse> handleValidationErrors(MethodArgumentNotValidException ex) {
         String message = ex.getBindingResult().getFieldErrors().stream()
                 .map(FieldError::getDefaultMessage)
                 .findFirst()
                 .orElse("Validation error");
+        return problem(ProblemResponse.of(HttpStatus.BAD_REQUEST, message));
+    }
 
-        // Return a standard response structure
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", message);
-        response.put("status", HttpStatus.BAD_REQUEST.value());
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(response);
+    // Handles the expected outcomes of the services, such as refused access or a missing note
+    @ExceptionHandler(ApiException.class)
+    public ResponseEntity<ProblemResponse> handleApiException(ApiException ex) {
+        return problem(ex.getProblem());
     }
 
     // Handles ResponseStatusException (e.g., thrown manually)
     @ExceptionHandler(ResponseStatusException.class)
-    public ResponseEntity<Map<String, Object>> handleResponseStatusException(ResponseStatusException ex) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", ex.getReason());
-        response.put("status", ex.getStatusCode().value());
-        return ResponseEntity.status(ex.getStatusCode()).body(response);
+    public ResponseEntity<ProblemResponse> handleResponseStatusException(ResponseStatusException ex) {
+        return problem(ProblemResponse.of(ex.getStatusCode(), ex.getReason()));
+    }
+
+    // Handles unique constraint violations (e.g., a duplicate note title for the same user)
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ProblemResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        String cause = String.valueOf(ex.getMostSpecificCause().getMessage()).toLowerCase();
+        return problem(cause.contains(Note.UNIQUE_TITLE_PER_USER) ? DUPLICATE_TITLE : CONFLICTING_DATA);
+    }
+
+    // Handles concurrent updates of the same note
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ProblemResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+        return problem(CONCURRENT_UPDATE);
     }
 
     // Handles all other exceptions (fallback)
     @ExceptionHandler(Exception.class)
-    public ResponseEntity<Map<String, Object>> handleOtherExceptions(Exception ex) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("message", "An unexpected error occurred");
-        response.put("status", HttpStatus.INTERNAL_SERVER_ERROR.value());
-        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+    public ResponseEntity<ProblemResponse> handleOtherExceptions(Exception ex) {
+        return problem(UNEXPECTED_ERROR);
+    }
+
+    private static ResponseEntity<ProblemResponse> problem(ProblemResponse body) {
+        return new ResponseEntity<>(body, PROBLEM_HEADERS, body.status());
+    }
+
+    private static HttpHeaders problemHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_PROBLEM_JSON);
+        return HttpHeaders.readOnlyHttpHeaders(headers);
     }
-}
\ No newline at end of file
+}
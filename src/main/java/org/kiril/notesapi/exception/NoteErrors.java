@@ -0,0 +1,22 @@
+package org.kiril.notesapi.exception;
+
+// The expected errors of the note endpoints; fixed reasons are allocated once
+public final class NoteErrors {
+    public static final ApiException NOTE_FORBIDDEN =
+            ApiException.forbidden("You do not have permission to access this note.");
+    public static final ApiException NOTES_FORBIDDEN =
+            ApiException.forbidden("You do not have permission to access these notes.");
+    public static final ApiException ADMIN_CREATE_FORBIDDEN =
+            ApiException.forbidden("Admins are not allowed to create notes");
+    public static final ApiException ADMIN_UPDATE_FORBIDDEN =
+            ApiException.forbidden("Admins are not allowed to update notes");
+    public static final ApiException ADMIN_DELETE_FORBIDDEN =
+            ApiException.forbidden("Admins are not allowed to delete notes");
+
+    private NoteErrors() {
+    }
+
+    public static ApiException noteNotFound(Long id) {
+        return ApiException.notFound("Note not found with id: " + id);
+    }
+}
@@ -0,0 +1,20 @@
+package org.kiril.notesapi.exception;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+
+/**
+ * RFC 7807 problem details, serialized field by field rather than through a map. {@code message}
+ * repeats {@code detail} for clients written against the earlier error format.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ProblemResponse(String type, String title, int status, String detail, String message) {
+    private static final String DEFAULT_TYPE = "about:blank";
+
+    public static ProblemResponse of(HttpStatusCode status, String detail) {
+        HttpStatus known = HttpStatus.resolve(status.value());
+        return new ProblemResponse(DEFAULT_TYPE, known != null ? known.getReasonPhrase() : null,
+                status.value(), detail, detail);
+    }
+}
@@ -0,0 +1,38 @@
+package org.kiril.notesapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.kiril.notesapi.CacheRead")
+@Label("Cache Read")
+@Category({"Notes API", "Cache"})
+@Description("A cache lookup and, on a miss, the load that filled it")
+@Threshold("5 ms")
+@StackTrace(false)
+public class CacheReadEvent extends Event {
+    public static final String HIT = "hit";
+    public static final String PINNED = "pinned";
+    public static final String MISS = "miss";
+    public static final String LOAD = "load";
+
+    @Label("Cache")
+    private String cacheName;
+
+    @Label("Outcome")
+    @Description("hit, pinned (served from the in-memory copy of a hot key), miss or load")
+    private String outcome;
+
+    public void end(String cacheName, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.cacheName = cacheName;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
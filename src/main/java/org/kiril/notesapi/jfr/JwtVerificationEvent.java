@@ -0,0 +1,26 @@
+package org.kiril.notesapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.kiril.notesapi.JwtVerification")
+@Label("JWT Verification")
+@Category({"Notes API", "Security"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class JwtVerificationEvent extends Event {
+    @Label("Outcome")
+    private String outcome;
+
+    public void end(String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.kiril.notesapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.kiril.notesapi.NoteOperation")
+@Label("Note Operation")
+@Category({"Notes API", "Service"})
+@Description("A NoteService call, including the caches in front of it")
+@Threshold("20 ms")
+@StackTrace(false)
+public class NoteOperationEvent extends Event {
+    @Label("Operation")
+    private String operation;
+
+    @Label("User Id")
+    @Description("The calling user, 0 for calls without one such as cache warm-up")
+    private long userId;
+
+    @Label("Note Count")
+    @Description("Note ids passed in, for multi-gets")
+    private int noteCount;
+
+    @Label("Result Size")
+    @Description("Notes returned")
+    private int resultSize;
+
+    @Label("Failed")
+    private boolean failed;
+
+    // Call once shouldCommit() has passed, so the fields are only worked out for recorded calls
+    public void commit(String operation, long userId, int noteCount, int resultSize, boolean failed) {
+        this.operation = operation;
+        this.userId = userId;
+        this.noteCount = noteCount;
+        this.resultSize = resultSize;
+        this.failed = failed;
+        commit();
+    }
+}
@@ -0,0 +1,68 @@
+package org.kiril.notesapi.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+
+// Records a NoteOperationEvent per public NoteService call. Outermost, so cache hits are included.
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class NoteOperationRecorder {
+
+    @Around("execution(public * org.kiril.notesapi.service.NoteService.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        NoteOperationEvent event = new NoteOperationEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+        event.begin();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.commit(joinPoint.getSignature().getName(), callerId(), noteCount(joinPoint.getArgs()),
+                        resultSize(result), failed);
+            }
+        }
+    }
+
+    // Read without Caller.current(), which throws for calls made outside a request
+    private static long callerId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal
+                ? principal.getCaller().userId()
+                : 0;
+    }
+
+    // The id list of a multi-get; other collection arguments, such as field sets, aren't notes
+    private static int noteCount(Object[] args) {
+        for (Object arg : args) {
+            if (arg instanceof List<?> ids) {
+                return ids.size();
+            }
+        }
+        return 0;
+    }
+
+    private static int resultSize(Object result) {
+        if (result instanceof Collection<?> notes) {
+            return notes.size();
+        }
+        return result == null ? 0 : 1;
+    }
+}
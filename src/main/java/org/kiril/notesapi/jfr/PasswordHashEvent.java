@@ -0,0 +1,31 @@
+package org.kiril.notesapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.kiril.notesapi.PasswordHash")
+@Label("Password Hash")
+@Category({"Notes API", "Security"})
+@Description("BCrypt hashing of a password on registration or login")
+@Threshold("50 ms")
+@StackTrace(false)
+public class PasswordHashEvent extends Event {
+    public static final String ENCODE = "encode";
+    public static final String MATCH = "match";
+
+    @Label("Operation")
+    private String operation;
+
+    public void end(String operation) {
+        end();
+        if (shouldCommit()) {
+            this.operation = operation;
+            commit();
+        }
+    }
+}
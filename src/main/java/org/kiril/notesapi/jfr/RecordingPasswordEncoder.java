@@ -0,0 +1,40 @@
+package org.kiril.notesapi.jfr;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+// Records every hash computed by the wrapped encoder, covering AuthService's encode calls as well as
+// the match the authentication manager runs on login
+public class RecordingPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+
+    public RecordingPasswordEncoder(PasswordEncoder delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return delegate.encode(rawPassword);
+        } finally {
+            event.end(PasswordHashEvent.ENCODE);
+        }
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        PasswordHashEvent event = new PasswordHashEvent();
+        event.begin();
+        try {
+            return delegate.matches(rawPassword, encodedPassword);
+        } finally {
+            event.end(PasswordHashEvent.MATCH);
+        }
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+}
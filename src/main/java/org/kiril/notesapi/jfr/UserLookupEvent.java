@@ -0,0 +1,28 @@
+package org.kiril.notesapi.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.kiril.notesapi.UserLookup")
+@Label("User Lookup")
+@Category({"Notes API", "Security"})
+@Description("loadUserByUsername for an authenticated request")
+@Threshold("5 ms")
+@StackTrace(false)
+public class UserLookupEvent extends Event {
+    @Label("Found")
+    private boolean found;
+
+    public void end(boolean found) {
+        end();
+        if (shouldCommit()) {
+            this.found = found;
+            commit();
+        }
+    }
+}
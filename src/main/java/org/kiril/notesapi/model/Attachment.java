@@ -0,0 +1,45 @@
+package org.kiril.notesapi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "note_attachments")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Attachment {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String filename;
+
+    @Column(nullable = false)
+    private String contentType;
+
+    @Column(nullable = false)
+    private long byteSize;
+
+    // Names the file in the AttachmentStore and doubles as the download ETag
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    // Rows go with their note; the files are reclaimed by BlobGarbageCollector
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "note_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Note note;
+}
@@ -8,11 +8,15 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "notes")
+@Table(name = "notes",
+        uniqueConstraints = @UniqueConstraint(name = Note.UNIQUE_TITLE_PER_USER,
+                columnNames = {"user_id", "title"}))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Note {
+    // Created by the V2 migration; GlobalExceptionHandler matches on this name
+    public static final String UNIQUE_TITLE_PER_USER = "uk_notes_user_id_title";
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,15 +25,39 @@ public class Note {
     @Column(nullable = false)
     private String title;
 
+    // Null when the body lives in the blob store under contentHash or in the segment archive
     @Column(columnDefinition = "TEXT")
     private String content;
 
+    @Column(length = 64)
+    private String contentHash;
+
+    // Uncompressed UTF-8 size of an externalized or archived body
+    private Integer contentLength;
+
+    // Where the body of a cold note lives in the segment archive; content is null meanwhile
+    @Column(length = 64)
+    private String archiveSegment;
+
+    private Long archiveOffset;
+
+    private Integer archiveLength;
+
+    // Incremented on every update; stale writes fail with an optimistic locking error
+    @Version
+    private Long version;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
     @UpdateTimestamp
     private LocalDateTime updatedAt;
 
+    // True when the body is in the content column and reading it needs no storage access
+    public boolean hasInlineContent() {
+        return contentHash == null && archiveSegment == null;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,44 @@
+package org.kiril.notesapi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// One entry of the note change journal, appended in the same transaction as the change itself
+@Entity
+@Table(name = "note_changes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteChange {
+    public enum Type {
+        UPSERT,
+        DELETE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long noteId;
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Type type;
+
+    // The note's version after the change
+    @Column(nullable = false)
+    private Long version;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
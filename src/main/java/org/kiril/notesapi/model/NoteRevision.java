@@ -0,0 +1,67 @@
+package org.kiril.notesapi.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import org.kiril.notesapi.text.TextEdit;
+
+import java.time.LocalDateTime;
+
+/**
+ * The state of a note at an earlier version. Either a full snapshot of the body, or a single edit
+ * that turns the body of the next revision (or the live note) back into this one.
+ */
+@Entity
+@Table(name = "note_revisions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_note_revisions_note_id_revision",
+                columnNames = {"note_id", "revision"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NoteRevision {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The note version this row describes
+    @Column(nullable = false)
+    private Long revision;
+
+    @Column(nullable = false)
+    private String title;
+
+    @Column(nullable = false)
+    private boolean snapshot;
+
+    // The whole body for a snapshot, otherwise the text the backward edit inserts. Null for a
+    // snapshot whose body is in the blob store under contentHash
+    @Column(columnDefinition = "TEXT")
+    private String content;
+
+    @Column(length = 64)
+    private String contentHash;
+
+    // Uncompressed UTF-8 size of a snapshot body in the blob store
+    private Integer contentLength;
+
+    private Integer editOffset;
+
+    private Integer editDelete;
+
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "note_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Note note;
+
+    public TextEdit backwardEdit() {
+        return new TextEdit(editOffset, editDelete, content);
+    }
+}
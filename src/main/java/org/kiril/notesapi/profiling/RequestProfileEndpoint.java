@@ -0,0 +1,79 @@
+package org.kiril.notesapi.profiling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.kiril.notesapi.config.MetricsConfig.REQUEST_ALLOCATION_METRIC;
+import static org.kiril.notesapi.config.MetricsConfig.REQUEST_CPU_METRIC;
+
+// /actuator/requestprofile: allocation and CPU time per handler method, the heaviest allocators first.
+// Counts cover sampled requests only; percentiles cover the last few minutes.
+@Component
+@Endpoint(id = "requestprofile")
+@ConditionalOnProperty(prefix = "notes.profiling", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class RequestProfileEndpoint {
+    private final MeterRegistry meterRegistry;
+    private final RequestProfilingProperties properties;
+
+    public record RequestProfile(double sampleRate, Map<String, HandlerProfile> handlers) {
+    }
+
+    public record HandlerProfile(long requests, Distribution allocatedBytes, Distribution cpuMillis) {
+    }
+
+    public record Distribution(double mean, double max, Map<String, Double> percentiles) {
+    }
+
+    @ReadOperation
+    public RequestProfile requestProfile() {
+        Map<String, Distribution> cpu = new HashMap<>();
+        for (Timer timer : meterRegistry.find(REQUEST_CPU_METRIC).timers()) {
+            cpu.put(timer.getId().getTag(RequestProfilingFilter.HANDLER_TAG), millis(timer.takeSnapshot()));
+        }
+
+        Map<String, HandlerProfile> handlers = new LinkedHashMap<>();
+        meterRegistry.find(REQUEST_ALLOCATION_METRIC).summaries().stream()
+                .sorted(Comparator.comparingDouble(DistributionSummary::totalAmount).reversed())
+                .forEach(summary -> {
+                    String handler = summary.getId().getTag(RequestProfilingFilter.HANDLER_TAG);
+                    handlers.put(handler, new HandlerProfile(summary.count(),
+                            bytes(summary.takeSnapshot()), cpu.get(handler)));
+                });
+        return new RequestProfile(properties.getSampleRate(), handlers);
+    }
+
+    private static Distribution bytes(HistogramSnapshot snapshot) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            percentiles.put(name(percentile), percentile.value());
+        }
+        return new Distribution(snapshot.mean(), snapshot.max(), percentiles);
+    }
+
+    private static Distribution millis(HistogramSnapshot snapshot) {
+        Map<String, Double> percentiles = new LinkedHashMap<>();
+        for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+            percentiles.put(name(percentile), percentile.value(TimeUnit.MILLISECONDS));
+        }
+        return new Distribution(snapshot.mean(TimeUnit.MILLISECONDS), snapshot.max(TimeUnit.MILLISECONDS), percentiles);
+    }
+
+    private static String name(ValueAtPercentile percentile) {
+        return "p" + Math.round(percentile.percentile() * 100);
+    }
+}
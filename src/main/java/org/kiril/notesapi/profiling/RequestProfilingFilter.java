@@ -0,0 +1,172 @@
+package org.kiril.notesapi.profiling;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.kiril.notesapi.config.MetricsConfig.REQUEST_ALLOCATION_METRIC;
+import static org.kiril.notesapi.config.MetricsConfig.REQUEST_CPU_METRIC;
+
+/**
+ * Measures the bytes allocated and the CPU time used by the request thread, from before the
+ * security filters to after the response is written, and records them per handler method of the
+ * profiled controllers. Work handed to other threads, such as streamed responses, isn't counted.
+ * Runs first so that JWT verification and error handling are part of the measurement.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "notes.profiling", name = "enabled", havingValue = "true")
+public class RequestProfilingFilter extends OncePerRequestFilter {
+    public static final String HANDLER_TAG = "handler";
+
+    private static final Logger logger = LoggerFactory.getLogger(RequestProfilingFilter.class);
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+    private static final HandlerMeters NOT_PROFILED = new HandlerMeters(null, null);
+
+    private final MeterRegistry meterRegistry;
+    private final RequestProfilingProperties properties;
+    private final com.sun.management.ThreadMXBean threads;
+    private final boolean measureAllocation;
+    private final boolean measureCpu;
+
+    // Resolved once per handler method, so a measured request allocates nothing for the lookup
+    private final Map<Method, HandlerMeters> meters = new ConcurrentHashMap<>();
+
+    private record HandlerMeters(DistributionSummary allocated, Timer cpu) {
+    }
+
+    public RequestProfilingFilter(MeterRegistry meterRegistry, RequestProfilingProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.properties = properties;
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean) {
+            this.threads = threadMXBean;
+            this.measureAllocation = enableAllocation(threadMXBean);
+            this.measureCpu = enableCpu(threadMXBean);
+        } else {
+            this.threads = null;
+            this.measureAllocation = false;
+            this.measureCpu = false;
+        }
+        if (!measureAllocation && !measureCpu) {
+            logger.warn("Request profiling is enabled, but this JVM measures neither allocation nor CPU time per thread");
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        double sampleRate = properties.getSampleRate();
+        if (threads == null || (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Both read -1 on threads the JVM can't measure, such as virtual threads for CPU time
+        long allocatedBefore = measureAllocation ? threads.getCurrentThreadAllocatedBytes() : -1;
+        long cpuBefore = measureCpu ? threads.getCurrentThreadCpuTime() : -1;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long allocatedAfter = measureAllocation ? threads.getCurrentThreadAllocatedBytes() : -1;
+            long cpuAfter = measureCpu ? threads.getCurrentThreadCpuTime() : -1;
+            HandlerMeters handlerMeters = metersFor(request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE));
+            if (handlerMeters != NOT_PROFILED) {
+                if (allocatedBefore >= 0 && allocatedAfter >= 0) {
+                    handlerMeters.allocated().record(allocatedAfter - allocatedBefore);
+                }
+                if (cpuBefore >= 0 && cpuAfter >= 0) {
+                    handlerMeters.cpu().record(cpuAfter - cpuBefore, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+
+    private HandlerMeters metersFor(Object handler) {
+        if (!(handler instanceof HandlerMethod handlerMethod)) {
+            return NOT_PROFILED;
+        }
+        HandlerMeters found = meters.get(handlerMethod.getMethod());
+        if (found != null) {
+            return found;
+        }
+        return meters.computeIfAbsent(handlerMethod.getMethod(), method -> register(handlerMethod));
+    }
+
+    private HandlerMeters register(HandlerMethod handlerMethod) {
+        String controller = handlerMethod.getBeanType().getSimpleName();
+        if (!properties.getControllers().contains(controller)) {
+            return NOT_PROFILED;
+        }
+        String handler = controller + "." + handlerName(handlerMethod.getMethod());
+        return new HandlerMeters(
+                DistributionSummary.builder(REQUEST_ALLOCATION_METRIC)
+                        .description("Bytes allocated by the request thread per request")
+                        .baseUnit("bytes")
+                        .tag(HANDLER_TAG, handler)
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry),
+                Timer.builder(REQUEST_CPU_METRIC)
+                        .description("CPU time used by the request thread per request")
+                        .tag(HANDLER_TAG, handler)
+                        .publishPercentiles(PERCENTILES)
+                        .register(meterRegistry));
+    }
+
+    // Overloads, such as the ?fields= variants, are told apart by their parameter types
+    private static String handlerName(Method method) {
+        long overloads = Arrays.stream(method.getDeclaringClass().getMethods())
+                .filter(other -> other.getName().equals(method.getName()))
+                .count();
+        if (overloads < 2) {
+            return method.getName();
+        }
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(",", method.getName() + "(", ")"));
+    }
+
+    private static boolean enableAllocation(com.sun.management.ThreadMXBean threads) {
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            return false;
+        }
+        if (!threads.isThreadAllocatedMemoryEnabled()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+        }
+        return true;
+    }
+
+    private static boolean enableCpu(com.sun.management.ThreadMXBean threads) {
+        if (!threads.isCurrentThreadCpuTimeSupported()) {
+            return false;
+        }
+        if (!threads.isThreadCpuTimeEnabled()) {
+            threads.setThreadCpuTimeEnabled(true);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package org.kiril.notesapi.profiling;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+@Data
+@ConfigurationProperties(prefix = "notes.profiling")
+public class RequestProfilingProperties {
+    private boolean enabled = false;
+
+    // Share of requests measured; below 1 the others only pay for one random number
+    private double sampleRate = 1.0;
+
+    // Controllers, by simple class name, whose handler methods are profiled
+    private Set<String> controllers = new HashSet<>(List.of("NoteController", "AuthController", "UserController"));
+}
@@ -0,0 +1,66 @@
+package org.kiril.notesapi.readmodel;
+
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.NoteChange;
+import org.kiril.notesapi.repository.NoteChangeRepository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Appends every note change to the journal of the note's shard, in the transaction making the
+ * change, and applies it to this node's read model once that transaction commits. Other nodes pick
+ * the change up from the journal. Does nothing unless the read model is enabled.
+ */
+public class NoteJournal {
+    private final NoteChangeRepository noteChangeRepository;
+    private final NoteReadModel readModel;
+    private final boolean enabled;
+
+    public NoteJournal(NoteChangeRepository noteChangeRepository, NoteReadModel readModel, boolean enabled) {
+        this.noteChangeRepository = noteChangeRepository;
+        this.readModel = readModel;
+        this.enabled = enabled;
+    }
+
+    // Call after the note has been flushed, so it carries its id and new version
+    public void recordUpsert(Note note, String content) {
+        if (!enabled) {
+            return;
+        }
+        append(note, NoteChange.Type.UPSERT);
+        NoteView view = NoteView.of(note, content);
+        afterCommit(() -> readModel.upsert(view));
+    }
+
+    public void recordDelete(Note note) {
+        if (!enabled) {
+            return;
+        }
+        append(note, NoteChange.Type.DELETE);
+        long id = note.getId();
+        afterCommit(() -> readModel.remove(id));
+    }
+
+    private void append(Note note, NoteChange.Type type) {
+        NoteChange change = new NoteChange();
+        change.setNoteId(note.getId());
+        change.setUserId(note.getUser().getId());
+        change.setType(type);
+        change.setVersion(note.getVersion());
+        noteChangeRepository.save(change);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || !TransactionSynchronizationManager.isActualTransactionActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,208 @@
+package org.kiril.notesapi.readmodel;
+
+import org.kiril.notesapi.dto.NoteDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * All notes in memory, indexed by id and by owner. Both indexes are split into lock stripes, so
+ * readers of different users don't contend and a writer only blocks its own stripe. Filled from
+ * the note change journal by {@link ReadModelUpdater}; serves reads only once it has caught up.
+ * <p>
+ * Bodies are kept until they take {@code maxBodyBytes} of heap; notes added beyond that keep only
+ * their metadata. A read that would need a missing body returns null, and the caller goes to the
+ * database instead.
+ */
+public class NoteReadModel {
+    private static final int STRIPES = 64;
+
+    private final Stripe<NoteView>[] byId = stripes();
+    private final Stripe<LongMap<NoteView>>[] byUser = stripes();
+    private final long maxBodyBytes;
+    private final AtomicLong bodyBytes = new AtomicLong();
+    private volatile boolean ready;
+
+    public NoteReadModel() {
+        this(Long.MAX_VALUE);
+    }
+
+    public NoteReadModel(long maxBodyBytes) {
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    private static final class Stripe<V> {
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final LongMap<V> map = new LongMap<>();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    void markReady() {
+        ready = true;
+    }
+
+    // Null when the note is unknown here or its body was left out
+    public NoteDto getNote(long id) {
+        Stripe<NoteView> stripe = byId[stripe(id)];
+        stripe.lock.readLock().lock();
+        try {
+            NoteView note = stripe.map.get(id);
+            return note == null || !note.hasBody() ? null : note.toDto();
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    // Null when a body of the user's notes was left out
+    public List<NoteDto> getNotes(long userId) {
+        Stripe<LongMap<NoteView>> stripe = byUser[stripe(userId)];
+        List<NoteView> notes = new ArrayList<>();
+        stripe.lock.readLock().lock();
+        try {
+            LongMap<NoteView> owned = stripe.map.get(userId);
+            if (owned != null) {
+                owned.forEachValue(notes::add);
+            }
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+        return toSortedDtos(notes);
+    }
+
+    public List<NoteDto> getAllNotes() {
+        return toSortedDtos(views());
+    }
+
+    // Keeps the newer version when the journal and a local commit race for the same note
+    public void upsert(NoteView view) {
+        NoteView note;
+        Stripe<NoteView> idStripe = byId[stripe(view.id())];
+        idStripe.lock.writeLock().lock();
+        try {
+            NoteView current = idStripe.map.get(view.id());
+            if (current != null && current.version() > view.version()) {
+                return;
+            }
+            note = withinBudget(view, current == null ? 0 : current.bodySize());
+            idStripe.map.put(note.id(), note);
+        } finally {
+            idStripe.lock.writeLock().unlock();
+        }
+
+        Stripe<LongMap<NoteView>> userStripe = byUser[stripe(note.userId())];
+        userStripe.lock.writeLock().lock();
+        try {
+            LongMap<NoteView> owned = userStripe.map.get(note.userId());
+            if (owned == null) {
+                owned = new LongMap<>();
+                userStripe.map.put(note.userId(), owned);
+            }
+            owned.put(note.id(), note);
+        } finally {
+            userStripe.lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        Stripe<NoteView> idStripe = byId[stripe(id)];
+        NoteView removed;
+        idStripe.lock.writeLock().lock();
+        try {
+            removed = idStripe.map.remove(id);
+        } finally {
+            idStripe.lock.writeLock().unlock();
+        }
+        if (removed == null) {
+            return;
+        }
+        bodyBytes.addAndGet(-removed.bodySize());
+
+        Stripe<LongMap<NoteView>> userStripe = byUser[stripe(removed.userId())];
+        userStripe.lock.writeLock().lock();
+        try {
+            LongMap<NoteView> owned = userStripe.map.get(removed.userId());
+            if (owned != null) {
+                owned.remove(id);
+                if (owned.isEmpty()) {
+                    userStripe.map.remove(removed.userId());
+                }
+            }
+        } finally {
+            userStripe.lock.writeLock().unlock();
+        }
+    }
+
+    public void load(Collection<NoteView> notes) {
+        notes.forEach(this::upsert);
+    }
+
+    // A stripe at a time, so the result is not one point in time; replaying the journal from
+    // positions taken before the call makes up for that
+    public List<NoteView> views() {
+        List<NoteView> views = new ArrayList<>();
+        for (Stripe<NoteView> stripe : byId) {
+            stripe.lock.readLock().lock();
+            try {
+                stripe.map.forEachValue(views::add);
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return views;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<NoteView> stripe : byId) {
+            stripe.lock.readLock().lock();
+            try {
+                size += stripe.map.size();
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    public long bodyBytes() {
+        return bodyBytes.get();
+    }
+
+    // Called under the id stripe's write lock with the size of the view being replaced
+    private NoteView withinBudget(NoteView note, long replaced) {
+        long size = note.bodySize();
+        if (bodyBytes.addAndGet(size - replaced) > maxBodyBytes && size > 0) {
+            bodyBytes.addAndGet(-size);
+            return note.withoutBody();
+        }
+        return note;
+    }
+
+    private static List<NoteDto> toSortedDtos(List<NoteView> notes) {
+        if (notes.stream().anyMatch(note -> !note.hasBody())) {
+            return null;
+        }
+        notes.sort(Comparator.comparingLong(NoteView::id));
+        return notes.stream().map(NoteView::toDto).toList();
+    }
+
+    private static int stripe(long key) {
+        return (int) (key ^ (key >>> 32)) & (STRIPES - 1);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Stripe<V>[] stripes() {
+        Stripe<V>[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        return stripes;
+    }
+}
@@ -0,0 +1,43 @@
+package org.kiril.notesapi.readmodel;
+
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.model.Note;
+
+import java.time.LocalDateTime;
+
+// Immutable copy of a note as held by the read model; handed out as a fresh NoteDto on every read.
+// Without hasBody the model only keeps the metadata, and reads needing the body go to the database.
+public record NoteView(long id, long userId, String title, String content,
+                       LocalDateTime createdAt, LocalDateTime updatedAt, long version, boolean hasBody) {
+
+    public NoteView(long id, long userId, String title, String content,
+                    LocalDateTime createdAt, LocalDateTime updatedAt, long version) {
+        this(id, userId, title, content, createdAt, updatedAt, version, true);
+    }
+
+    public static NoteView of(Note note, String content) {
+        return new NoteView(note.getId(), note.getUser().getId(), note.getTitle(), content,
+                note.getCreatedAt(), note.getUpdatedAt(), note.getVersion());
+    }
+
+    public NoteView withoutBody() {
+        return new NoteView(id, userId, title, null, createdAt, updatedAt, version, false);
+    }
+
+    // Upper bound of the heap the body takes, at two bytes per char
+    long bodySize() {
+        return content == null ? 0 : 2L * content.length();
+    }
+
+    public NoteDto toDto() {
+        NoteDto dto = new NoteDto();
+        dto.setId(id);
+        dto.setTitle(title);
+        dto.setContent(content);
+        dto.setCreatedAt(createdAt);
+        dto.setUpdatedAt(updatedAt);
+        dto.setUserId(userId);
+        dto.setVersion(version);
+        return dto;
+    }
+}
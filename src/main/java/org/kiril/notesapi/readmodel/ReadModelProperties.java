@@ -0,0 +1,38 @@
+package org.kiril.notesapi.readmodel;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notes.read-model")
+public class ReadModelProperties {
+    // Journals every note change and serves note reads from memory once the model has caught up
+    private boolean enabled = false;
+
+    // Where the node keeps its snapshot, so a restart replays only what changed since
+    private Path snapshotDirectory = Path.of("data", "read-model");
+
+    // How often the journal is polled; changes made on other nodes become visible within this
+    private Duration pollInterval = Duration.ofMillis(200);
+
+    // Journal entries read per query
+    private int batchSize = 1000;
+
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    // Journal entries are pruned after this long; an older snapshot can't be caught up and is rebuilt
+    private Duration retention = Duration.ofDays(7);
+
+    // A missing journal id is usually a transaction still in flight; after this long it is taken
+    // for a rollback and skipped
+    private Duration gapTimeout = Duration.ofSeconds(10);
+
+    private Duration pruneInterval = Duration.ofHours(1);
+
+    // Heap the model may spend on note bodies; notes beyond it keep only their metadata in memory
+    private DataSize maxBodyMemory = DataSize.ofMegabytes(256);
+}
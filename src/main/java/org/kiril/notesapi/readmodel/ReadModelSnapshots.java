@@ -0,0 +1,135 @@
+package org.kiril.notesapi.readmodel;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the read model together with the journal position of every shard, so a restarting node
+ * loads the file and replays only the changes made since. The file is written next to the old one
+ * and moved over it, so a crash mid-write leaves the previous snapshot intact.
+ */
+public class ReadModelSnapshots {
+    private static final Logger logger = LoggerFactory.getLogger(ReadModelSnapshots.class);
+    private static final int MAGIC = 0x4E524D32;
+    private static final String FILE_NAME = "notes.snapshot";
+
+    private final Path file;
+
+    public ReadModelSnapshots(Path directory) {
+        this.file = directory.resolve(FILE_NAME);
+    }
+
+    public record Snapshot(Instant takenAt, Map<String, Long> positions, List<NoteView> notes) {
+    }
+
+    public void write(Snapshot snapshot) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(FILE_NAME + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(Files.newOutputStream(temp))))) {
+                out.writeInt(MAGIC);
+                out.writeLong(snapshot.takenAt().toEpochMilli());
+                out.writeInt(snapshot.positions().size());
+                for (Map.Entry<String, Long> position : snapshot.positions().entrySet()) {
+                    out.writeUTF(position.getKey());
+                    out.writeLong(position.getValue());
+                }
+                out.writeInt(snapshot.notes().size());
+                for (NoteView note : snapshot.notes()) {
+                    out.writeLong(note.id());
+                    out.writeLong(note.userId());
+                    writeString(out, note.title());
+                    writeString(out, note.content());
+                    writeTime(out, note.createdAt());
+                    writeTime(out, note.updatedAt());
+                    out.writeLong(note.version());
+                    out.writeBoolean(note.hasBody());
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write read model snapshot " + file, e);
+        }
+    }
+
+    // Empty when there is no snapshot yet or it can't be read; the caller then rebuilds from the database
+    public Optional<Snapshot> read() {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(Files.newInputStream(file))))) {
+            if (in.readInt() != MAGIC) {
+                logger.warn("Ignoring read model snapshot {} with an unknown format", file);
+                return Optional.empty();
+            }
+            Instant takenAt = Instant.ofEpochMilli(in.readLong());
+            int shards = in.readInt();
+            Map<String, Long> positions = new LinkedHashMap<>();
+            for (int i = 0; i < shards; i++) {
+                positions.put(in.readUTF(), in.readLong());
+            }
+            int count = in.readInt();
+            List<NoteView> notes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                notes.add(new NoteView(in.readLong(), in.readLong(), readString(in), readString(in),
+                        readTime(in), readTime(in), in.readLong(), in.readBoolean()));
+            }
+            return Optional.of(new Snapshot(takenAt, positions, notes));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable read model snapshot {}", file, e);
+            return Optional.empty();
+        }
+    }
+
+    // writeUTF is limited to 64 KB, which note bodies exceed
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        writeString(out, time == null ? null : time.toString());
+    }
+
+    private static LocalDateTime readTime(DataInputStream in) throws IOException {
+        String time = readString(in);
+        return time == null ? null : LocalDateTime.parse(time);
+    }
+}
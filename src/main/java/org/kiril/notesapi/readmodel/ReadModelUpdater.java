@@ -0,0 +1,215 @@
+package org.kiril.notesapi.readmodel;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.NoteChange;
+import org.kiril.notesapi.repository.NoteChangeRepository;
+import org.kiril.notesapi.repository.NoteRepository;
+import org.kiril.notesapi.service.NoteShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the {@link NoteReadModel} in step with the note change journal of every shard. The first
+ * run loads the last snapshot, or rebuilds from the notes tables when there is none, and replays
+ * the journal from there; only then does the model start serving reads. Applying an entry re-reads
+ * the note, so entries may be replayed any number of times.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notes.read-model", name = "enabled", havingValue = "true")
+public class ReadModelUpdater {
+    private static final Logger logger = LoggerFactory.getLogger(ReadModelUpdater.class);
+
+    private final NoteReadModel readModel;
+    private final ReadModelSnapshots snapshots;
+    private final NoteChangeRepository noteChangeRepository;
+    private final NoteRepository noteRepository;
+    private final NoteBodies noteBodies;
+    private final NoteShards noteShards;
+    private final EntityManager entityManager;
+    private final ReadModelProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    // Only touched by catchUp; positions is the copy snapshots read
+    private final Map<String, ShardCursor> cursors = new HashMap<>();
+    private final Map<String, Long> positions = new ConcurrentHashMap<>();
+
+    public ReadModelUpdater(NoteReadModel readModel, ReadModelSnapshots snapshots,
+                            NoteChangeRepository noteChangeRepository, NoteRepository noteRepository,
+                            NoteBodies noteBodies, NoteShards noteShards, EntityManager entityManager,
+                            ReadModelProperties properties, PlatformTransactionManager transactionManager) {
+        this.readModel = readModel;
+        this.snapshots = snapshots;
+        this.noteChangeRepository = noteChangeRepository;
+        this.noteRepository = noteRepository;
+        this.noteBodies = noteBodies;
+        this.noteShards = noteShards;
+        this.entityManager = entityManager;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.read-model.poll-interval:PT0.2S}")
+    public synchronized void catchUp() {
+        if (cursors.isEmpty()) {
+            load();
+        }
+        long gapTimeout = properties.getGapTimeout().toNanos();
+        for (Map.Entry<String, ShardCursor> shard : cursors.entrySet()) {
+            ShardCursor cursor = shard.getValue();
+            int fresh;
+            // A full batch of fresh entries means there may be more
+            do {
+                fresh = poll(shard.getKey(), cursor, gapTimeout);
+            } while (fresh == properties.getBatchSize());
+            positions.put(shard.getKey(), cursor.position());
+        }
+        if (!readModel.isReady()) {
+            readModel.markReady();
+            logger.info("Read model caught up with {} notes", readModel.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notes.read-model.snapshot-interval:PT5M}",
+            initialDelayString = "${notes.read-model.snapshot-interval:PT5M}")
+    public void snapshot() {
+        if (!readModel.isReady()) {
+            return;
+        }
+        // Positions first: whatever is applied after them is replayed again on load
+        Map<String, Long> taken = new LinkedHashMap<>(positions);
+        Instant takenAt = Instant.now();
+        snapshots.write(new ReadModelSnapshots.Snapshot(takenAt, taken, readModel.views()));
+    }
+
+    @Scheduled(fixedDelayString = "${notes.read-model.prune-interval:PT1H}",
+            initialDelayString = "${notes.read-model.prune-interval:PT1H}")
+    public int prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        int pruned = 0;
+        for (String shard : noteShards.shardNames()) {
+            pruned += noteShards.onShard(shard, () -> noteChangeRepository.deleteOlderThan(cutoff));
+        }
+        if (pruned > 0) {
+            logger.info("Pruned {} note journal entries older than {}", pruned, cutoff);
+        }
+        return pruned;
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            snapshot();
+        } catch (RuntimeException e) {
+            logger.warn("Could not write the read model snapshot on shutdown", e);
+        }
+    }
+
+    private void load() {
+        List<String> shards = noteShards.shardNames();
+        Instant oldestUsable = Instant.now().minus(properties.getRetention());
+        Optional<ReadModelSnapshots.Snapshot> snapshot = snapshots.read()
+                .filter(found -> found.takenAt().isAfter(oldestUsable))
+                .filter(found -> found.positions().keySet().containsAll(shards));
+
+        if (snapshot.isPresent()) {
+            readModel.load(snapshot.get().notes());
+            shards.forEach(shard -> cursors.put(shard, new ShardCursor(snapshot.get().positions().get(shard))));
+            logger.info("Loaded read model snapshot from {} with {} notes",
+                    snapshot.get().takenAt(), snapshot.get().notes().size());
+            return;
+        }
+
+        // Cursors are only kept once every shard is read, so a failed rebuild is retried as a whole
+        long start = System.nanoTime();
+        Map<String, ShardCursor> rebuilt = new HashMap<>();
+        for (String shard : shards) {
+            rebuilt.put(shard, new ShardCursor(rebuild(shard)));
+        }
+        cursors.putAll(rebuilt);
+        logger.info("Rebuilt read model with {} notes in {} ms",
+                readModel.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Reads every note of the shard and returns the journal position to replay from; it starts a
+    // batch back to cover entries of transactions still in flight while the notes were read
+    private long rebuild(String shard) {
+        return noteShards.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+            long lastId = noteChangeRepository.findLastId();
+            try (Stream<Note> notes = noteRepository.streamAll()) {
+                notes.forEach(note -> {
+                    readModel.upsert(view(note));
+                    entityManager.detach(note);
+                });
+            }
+            return Math.max(0, lastId - properties.getBatchSize());
+        }));
+    }
+
+    // Applies the next journal entries of one shard and returns how many were new
+    private int poll(String shard, ShardCursor cursor, long gapTimeout) {
+        return noteShards.onShard(shard, () -> readOnlyTransaction.execute(status -> {
+            List<NoteChange> changes = noteChangeRepository.findAfter(cursor.position(),
+                    PageRequest.ofSize(properties.getBatchSize()));
+
+            // Only the latest entry of a note matters, and upserts re-read the note anyway
+            Set<Long> upserts = new LinkedHashSet<>();
+            Set<Long> deletes = new LinkedHashSet<>();
+            int fresh = 0;
+            for (NoteChange change : changes) {
+                if (cursor.isApplied(change.getId())) {
+                    continue;
+                }
+                fresh++;
+                if (change.getType() == NoteChange.Type.DELETE) {
+                    upserts.remove(change.getNoteId());
+                    deletes.add(change.getNoteId());
+                } else {
+                    deletes.remove(change.getNoteId());
+                    upserts.add(change.getNoteId());
+                }
+            }
+
+            deletes.forEach(readModel::remove);
+            if (!upserts.isEmpty()) {
+                Set<Long> missing = new LinkedHashSet<>(upserts);
+                for (Note note : noteRepository.findAllById(upserts)) {
+                    readModel.upsert(view(note));
+                    missing.remove(note.getId());
+                }
+                // Deleted since; its delete entry may still be behind a gap
+                missing.forEach(readModel::remove);
+            }
+
+            changes.forEach(change -> cursor.applied(change.getId()));
+            cursor.advance(System.nanoTime(), gapTimeout);
+            return fresh;
+        }));
+    }
+
+    private NoteView view(Note note) {
+        return NoteView.of(note, note.hasInlineContent() ? note.getContent() : noteBodies.read(note));
+    }
+}
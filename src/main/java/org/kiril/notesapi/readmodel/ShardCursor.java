@@ -0,0 +1,56 @@
+package org.kiril.notesapi.readmodel;
+
+import java.util.TreeSet;
+
+/**
+ * How far the read model has read the journal of one shard. Journal ids come from an identity
+ * column, so a transaction that commits late leaves a lower id behind ones already applied. The
+ * cursor keeps the position below which every id has been applied, plus the applied ids above it,
+ * and only moves past a gap once it has stayed open for the gap timeout.
+ */
+final class ShardCursor {
+    private long position;
+    private final TreeSet<Long> applied = new TreeSet<>();
+    private boolean gapOpen;
+    private long gapSince;
+
+    ShardCursor(long position) {
+        this.position = position;
+    }
+
+    long position() {
+        return position;
+    }
+
+    boolean isApplied(long id) {
+        return id <= position || applied.contains(id);
+    }
+
+    void applied(long id) {
+        if (id > position) {
+            applied.add(id);
+        }
+    }
+
+    void advance(long now, long gapTimeout) {
+        while (true) {
+            while (!applied.isEmpty() && applied.first() == position + 1) {
+                position = applied.pollFirst();
+            }
+            if (applied.isEmpty()) {
+                gapOpen = false;
+                return;
+            }
+            if (!gapOpen) {
+                gapOpen = true;
+                gapSince = now;
+                return;
+            }
+            if (now - gapSince < gapTimeout) {
+                return;
+            }
+            position = applied.first() - 1;
+            gapOpen = false;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.kiril.notesapi.repository;
+
+import org.kiril.notesapi.model.Attachment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface AttachmentRepository extends JpaRepository<Attachment, Long> {
+    List<Attachment> findByNoteIdOrderById(Long noteId);
+
+    Optional<Attachment> findByIdAndNoteId(Long id, Long noteId);
+
+    @Query("select distinct a.sha256 from Attachment a")
+    List<String> findContentHashes();
+}
@@ -0,0 +1,26 @@
+package org.kiril.notesapi.repository;
+
+import org.kiril.notesapi.model.NoteChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NoteChangeRepository extends JpaRepository<NoteChange, Long> {
+
+    @Query("select c from NoteChange c where c.id > :position order by c.id")
+    List<NoteChange> findAfter(@Param("position") long position, Pageable pageable);
+
+    @Query("select coalesce(max(c.id), 0) from NoteChange c")
+    long findLastId();
+
+    @Modifying
+    @Transactional
+    @Query("delete from NoteChange c where c.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
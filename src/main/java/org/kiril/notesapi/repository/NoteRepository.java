@@ -1,11 +1,51 @@
 package org.kiril.notesapi.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.kiril.notesapi.model.Note;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface NoteRepository extends JpaRepository<Note, Long> {
+public interface NoteRepository extends JpaRepository<Note, Long>, NoteRepositoryCustom {
     List<Note> findByUserId(Long userId);
-    boolean existsByTitleAndUserId(String title, Long userId);
-}
\ No newline at end of file
+
+    // Streams must be consumed inside a transaction and closed by the caller
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("select n from Note n where n.user.id = :userId order by n.id")
+    Stream<Note> streamByUserId(@Param("userId") Long userId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("select n from Note n order by n.id")
+    Stream<Note> streamAll();
+
+    @Query("select distinct n.contentHash from Note n where n.contentHash is not null")
+    List<String> findContentHashes();
+
+    // Inline notes untouched since the cutoff, after the given id so skipped rows aren't read again
+    @Query("select n from Note n where n.updatedAt < :cutoff and n.id > :afterId and n.content is not null "
+            + "and n.contentHash is null and n.archiveSegment is null order by n.id")
+    List<Note> findArchivable(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
+
+    // Bulk update, so neither version nor updatedAt move; a note edited in the meantime is left alone
+    @Modifying(clearAutomatically = true)
+    @Query("update Note n set n.content = null, n.contentLength = :contentLength, n.archiveSegment = :segment, "
+            + "n.archiveOffset = :offset, n.archiveLength = :length where n.id = :id and n.version = :version "
+            + "and n.archiveSegment is null")
+    int archive(@Param("id") Long id, @Param("version") Long version, @Param("segment") String segment,
+                @Param("offset") long offset, @Param("length") int length, @Param("contentLength") int contentLength);
+
+    @Query("select distinct n.archiveSegment from Note n where n.archiveSegment is not null")
+    List<String> findArchiveSegments();
+
+    // Owners ordered by their latest note change, most recent first
+    @Query("select n.user.id from Note n group by n.user.id order by max(n.updatedAt) desc")
+    List<Long> findRecentlyActiveUserIds(Pageable pageable);
+}
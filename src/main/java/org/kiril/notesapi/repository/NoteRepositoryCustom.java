@@ -0,0 +1,17 @@
+package org.kiril.notesapi.repository;
+
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+// Queries that select only the requested columns; userId is always populated for access checks
+public interface NoteRepositoryCustom {
+    List<NoteDto> findProjectedByUserId(Long userId, Set<NoteField> fields);
+
+    List<NoteDto> findProjectedAll(Set<NoteField> fields);
+
+    Optional<NoteDto> findProjectedById(Long id, Set<NoteField> fields);
+}
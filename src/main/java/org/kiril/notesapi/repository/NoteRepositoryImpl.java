@@ -0,0 +1,133 @@
+package org.kiril.notesapi.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.blob.SegmentArchive;
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.model.Note;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+public class NoteRepositoryImpl implements NoteRepositoryCustom {
+
+    private static final String CONTENT_HASH = "contentHash";
+    private static final String CONTENT_LENGTH = "contentLength";
+    private static final String ARCHIVE_SEGMENT = "archiveSegment";
+    private static final String ARCHIVE_OFFSET = "archiveOffset";
+    private static final String ARCHIVE_LENGTH = "archiveLength";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final NoteBodies noteBodies;
+
+    public NoteRepositoryImpl(NoteBodies noteBodies) {
+        this.noteBodies = noteBodies;
+    }
+
+    @Override
+    public List<NoteDto> findProjectedByUserId(Long userId, Set<NoteField> fields) {
+        return findProjected(fields, (cb, note) -> cb.equal(note.get("user").get("id"), userId));
+    }
+
+    @Override
+    public List<NoteDto> findProjectedAll(Set<NoteField> fields) {
+        return findProjected(fields, null);
+    }
+
+    @Override
+    public Optional<NoteDto> findProjectedById(Long id, Set<NoteField> fields) {
+        return findProjected(fields, (cb, note) -> cb.equal(note.get("id"), id)).stream().findFirst();
+    }
+
+    private List<NoteDto> findProjected(Set<NoteField> fields, Filter filter) {
+        Set<NoteField> selected = EnumSet.copyOf(fields);
+        selected.add(NoteField.ID);
+        selected.add(NoteField.USER_ID);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Note> note = query.from(Note.class);
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (NoteField field : selected) {
+            selections.add(path(note, field).alias(field.name()));
+        }
+        if (selected.contains(NoteField.CONTENT)) {
+            selections.add(note.get(CONTENT_HASH).alias(CONTENT_HASH));
+            selections.add(note.get(CONTENT_LENGTH).alias(CONTENT_LENGTH));
+            selections.add(note.get(ARCHIVE_SEGMENT).alias(ARCHIVE_SEGMENT));
+            selections.add(note.get(ARCHIVE_OFFSET).alias(ARCHIVE_OFFSET));
+            selections.add(note.get(ARCHIVE_LENGTH).alias(ARCHIVE_LENGTH));
+        }
+        query.multiselect(selections);
+        if (filter != null) {
+            query.where(filter.apply(cb, note));
+        }
+        query.orderBy(cb.asc(note.get("id")));
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> toDto(tuple, selected))
+                .toList();
+    }
+
+    private static Path<?> path(Root<Note> note, NoteField field) {
+        return switch (field) {
+            case ID -> note.get("id");
+            case TITLE -> note.get("title");
+            case CONTENT -> note.get("content");
+            case CREATED_AT -> note.get("createdAt");
+            case UPDATED_AT -> note.get("updatedAt");
+            // Reads the foreign key column without joining users
+            case USER_ID -> note.get("user").get("id");
+            case VERSION -> note.get("version");
+        };
+    }
+
+    private NoteDto toDto(Tuple tuple, Set<NoteField> selected) {
+        NoteDto dto = new NoteDto();
+        for (NoteField field : selected) {
+            Object value = tuple.get(field.name());
+            switch (field) {
+                case ID -> dto.setId((Long) value);
+                case TITLE -> dto.setTitle((String) value);
+                case CONTENT -> dto.setContent(noteBodies.read((String) value,
+                        tuple.get(CONTENT_HASH, String.class), tuple.get(CONTENT_LENGTH, Integer.class),
+                        archiveLocation(tuple)));
+                case CREATED_AT -> dto.setCreatedAt((LocalDateTime) value);
+                case UPDATED_AT -> dto.setUpdatedAt((LocalDateTime) value);
+                case USER_ID -> dto.setUserId((Long) value);
+                case VERSION -> dto.setVersion((Long) value);
+            }
+        }
+        return dto;
+    }
+
+    private static SegmentArchive.Location archiveLocation(Tuple tuple) {
+        String segment = tuple.get(ARCHIVE_SEGMENT, String.class);
+        if (segment == null) {
+            return null;
+        }
+        return new SegmentArchive.Location(segment, tuple.get(ARCHIVE_OFFSET, Long.class),
+                tuple.get(ARCHIVE_LENGTH, Integer.class));
+    }
+
+    @FunctionalInterface
+    private interface Filter {
+        Predicate apply(CriteriaBuilder cb, Root<Note> note);
+    }
+}
@@ -0,0 +1,35 @@
+package org.kiril.notesapi.repository;
+
+import org.kiril.notesapi.dto.NoteRevisionDto;
+import org.kiril.notesapi.model.NoteRevision;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+
+    // Reads neither snapshot bodies nor edits
+    @Query(value = "select new org.kiril.notesapi.dto.NoteRevisionDto(r.revision, r.title, r.createdAt) "
+            + "from NoteRevision r where r.note.id = :noteId order by r.revision desc",
+            countQuery = "select count(r) from NoteRevision r where r.note.id = :noteId")
+    Page<NoteRevisionDto> findSummaries(@Param("noteId") Long noteId, Pageable pageable);
+
+    @Query("select r from NoteRevision r where r.note.id = :noteId and r.revision between :from and :to "
+            + "order by r.revision desc")
+    List<NoteRevision> findChain(@Param("noteId") Long noteId, @Param("from") long from, @Param("to") long to);
+
+    @Query("select distinct r.contentHash from NoteRevision r where r.contentHash is not null")
+    List<String> findContentHashes();
+
+    @Modifying
+    @Transactional
+    @Query("delete from NoteRevision r where r.createdAt < :cutoff")
+    int deleteOlderThan(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -0,0 +1,18 @@
+package org.kiril.notesapi.security;
+
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+// The authenticated user and whether they are an admin, resolved once when the principal is built
+public record Caller(Long userId, boolean admin) {
+    public static final String ADMIN_ROLE = "ROLE_ADMIN";
+
+    public static Caller current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
+            throw new AccessDeniedException("User not authenticated");
+        }
+        return principal.getCaller();
+    }
+}
@@ -18,12 +18,17 @@ public class UserPrincipal implements UserDetails {
 
     private final Collection<? extends GrantedAuthority> authorities;
 
+    @JsonIgnore
+    private final Caller caller;
+
     public UserPrincipal(Long id, String email, String password,
                          Collection<? extends GrantedAuthority> authorities) {
         this.id = id;
         this.email = email;
         this.password = password;
         this.authorities = authorities;
+        this.caller = new Caller(id, authorities.stream()
+                .anyMatch(authority -> Caller.ADMIN_ROLE.equals(authority.getAuthority())));
     }
 
     public static UserPrincipal create(User user) {
@@ -48,6 +53,10 @@ public class UserPrincipal implements UserDetails {
         return id;
     }
 
+    public Caller getCaller() {
+        return caller;
+    }
+
     @Override
     public String getPassword() {
         return password;
@@ -2,14 +2,19 @@ package org.kiril.notesapi.security.jwt;
 
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
-import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.jfr.JwtVerificationEvent;
+import org.kiril.notesapi.jfr.UserLookupEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,14 +26,25 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 
+import static org.kiril.notesapi.config.MetricsConfig.JWT_VERIFICATION_METRIC;
+
 @Component
-@RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtTokenProvider tokenProvider;
     private final UserDetailsService userDetailsService;
+    private final MeterRegistry meterRegistry;
+
+    // The registry is optional so the filter still works in web slice tests without actuator
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
+                                   UserDetailsService userDetailsService,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        this.tokenProvider = tokenProvider;
+        this.userDetailsService = userDetailsService;
+        this.meterRegistry = meterRegistry.getIfAvailable(SimpleMeterRegistry::new);
+    }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
@@ -39,9 +55,9 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
             if (StringUtils.hasText(jwt)) {
                 try {
-                    if (tokenProvider.validateToken(jwt)) {
-                        String email = tokenProvider.getEmailFromToken(jwt);
-                        UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+                    String email = verifyToken(jwt);
+                    if (email != null) {
+                        UserDetails userDetails = loadUser(email);
                         UsernamePasswordAuthenticationToken authentication =
                                 new UsernamePasswordAuthenticationToken(
                                         userDetails,
@@ -70,6 +86,40 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    // Validates the token and returns its subject, recording the verification time per outcome
+    private String verifyToken(String jwt) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "invalid";
+        try {
+            if (!tokenProvider.validateToken(jwt)) {
+                return null;
+            }
+            String email = tokenProvider.getEmailFromToken(jwt);
+            outcome = "valid";
+            return email;
+        } catch (ExpiredJwtException e) {
+            outcome = "expired";
+            throw e;
+        } finally {
+            sample.stop(meterRegistry.timer(JWT_VERIFICATION_METRIC, "outcome", outcome));
+            event.end(outcome);
+        }
+    }
+
+    private UserDetails loadUser(String email) {
+        UserLookupEvent event = new UserLookupEvent();
+        event.begin();
+        boolean found = false;
+        try {
+            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+            found = true;
+            return userDetails;
+        } finally {
+            event.end(found);
+        }
+    }
 
     // Helper method to extract JWT token from request
     private String getJwtFromRequest(HttpServletRequest request) {
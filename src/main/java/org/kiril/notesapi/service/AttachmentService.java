@@ -0,0 +1,124 @@
+package org.kiril.notesapi.service;
+
+import io.micrometer.core.annotation.Timed;
+import org.kiril.notesapi.blob.AttachmentStore;
+import org.kiril.notesapi.blob.BlobStoreProperties;
+import org.kiril.notesapi.dto.AttachmentDto;
+import org.kiril.notesapi.model.Attachment;
+import org.kiril.notesapi.repository.AttachmentRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.kiril.notesapi.config.MetricsConfig.SERVICE_METRIC;
+
+/**
+ * Attachments of a note, with the same access rules as the note itself. Uploads are streamed to
+ * the {@link AttachmentStore} outside any transaction so no connection is held while bytes arrive.
+ * Without the store (notes.blob.attachments-enabled off) uploads and downloads are refused with 503,
+ * while existing attachments can still be listed and deleted.
+ */
+@Service
+@Timed(SERVICE_METRIC)
+public class AttachmentService {
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    private final AttachmentRepository attachmentRepository;
+    private final NoteService noteService;
+    private final AttachmentStore attachmentStore;
+    private final long maxAttachmentSize;
+    private final TransactionTemplate transaction;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public AttachmentService(AttachmentRepository attachmentRepository, NoteService noteService,
+                             ObjectProvider<AttachmentStore> attachmentStore, BlobStoreProperties properties,
+                             PlatformTransactionManager transactionManager) {
+        this.attachmentRepository = attachmentRepository;
+        this.noteService = noteService;
+        this.attachmentStore = attachmentStore.getIfAvailable();
+        this.maxAttachmentSize = properties.getMaxAttachmentSize().toBytes();
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public record Download(AttachmentDto attachment, Path path) {
+    }
+
+    public AttachmentDto upload(Long noteId, String filename, String contentType, InputStream content) {
+        // Refuse before reading the body
+        AttachmentStore store = requireStore();
+        readOnlyTransaction.execute(status -> noteService.onAccessibleNote(noteId, true, note -> null));
+
+        AttachmentStore.StoredFile stored;
+        try {
+            stored = store.write(content, maxAttachmentSize);
+        } catch (AttachmentStore.TooLargeException e) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, e.getMessage());
+        }
+
+        // An unreferenced file left behind by a failure here is reclaimed by BlobGarbageCollector
+        return transaction.execute(status -> noteService.onAccessibleNote(noteId, true, note -> {
+            Attachment attachment = new Attachment();
+            attachment.setFilename(filename);
+            attachment.setContentType(contentType != null ? contentType : DEFAULT_CONTENT_TYPE);
+            attachment.setByteSize(stored.size());
+            attachment.setSha256(stored.sha256());
+            attachment.setNote(note);
+            return mapToDto(attachmentRepository.save(attachment));
+        }));
+    }
+
+    public List<AttachmentDto> getAttachments(Long noteId) {
+        return readOnlyTransaction.execute(status -> noteService.onAccessibleNote(noteId, false,
+                note -> attachmentRepository.findByNoteIdOrderById(note.getId()).stream()
+                        .map(this::mapToDto)
+                        .toList()));
+    }
+
+    public Download getDownload(Long noteId, Long attachmentId) {
+        AttachmentStore store = requireStore();
+        AttachmentDto attachment = readOnlyTransaction.execute(status -> noteService.onAccessibleNote(noteId, false,
+                note -> mapToDto(findAttachment(noteId, attachmentId))));
+        return new Download(attachment, store.pathFor(attachment.getSha256()));
+    }
+
+    public void deleteAttachment(Long noteId, Long attachmentId) {
+        transaction.executeWithoutResult(status -> noteService.onAccessibleNote(noteId, true, note -> {
+            attachmentRepository.delete(findAttachment(noteId, attachmentId));
+            return null;
+        }));
+    }
+
+    private AttachmentStore requireStore() {
+        if (attachmentStore == null) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Attachments are not enabled");
+        }
+        return attachmentStore;
+    }
+
+    private Attachment findAttachment(Long noteId, Long attachmentId) {
+        return attachmentRepository.findByIdAndNoteId(attachmentId, noteId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                        "Attachment not found with id: " + attachmentId));
+    }
+
+    private AttachmentDto mapToDto(Attachment attachment) {
+        AttachmentDto dto = new AttachmentDto();
+        dto.setId(attachment.getId());
+        dto.setNoteId(attachment.getNote().getId());
+        dto.setFilename(attachment.getFilename());
+        dto.setContentType(attachment.getContentType());
+        dto.setSize(attachment.getByteSize());
+        dto.setSha256(attachment.getSha256());
+        dto.setCreatedAt(attachment.getCreatedAt());
+        return dto;
+    }
+}
@@ -1,5 +1,6 @@
 package org.kiril.notesapi.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.kiril.notesapi.dto.AdminRegisterRequestDto;
 import org.kiril.notesapi.dto.AuthRequestDto;
@@ -22,9 +23,11 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import static org.kiril.notesapi.config.CacheConfig.USERS_CACHE;
+import static org.kiril.notesapi.config.MetricsConfig.SERVICE_METRIC;
 
 @Service
 @RequiredArgsConstructor
+@Timed(SERVICE_METRIC)
 public class AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
@@ -0,0 +1,71 @@
+package org.kiril.notesapi.service;
+
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.blob.AttachmentStore;
+import org.kiril.notesapi.blob.BlobStore;
+import org.kiril.notesapi.blob.BlobStoreProperties;
+import org.kiril.notesapi.blob.SegmentArchive;
+import org.kiril.notesapi.repository.AttachmentRepository;
+import org.kiril.notesapi.repository.NoteRepository;
+import org.kiril.notesapi.repository.NoteRevisionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Set;
+
+// Removes note body blobs, attachment files and archive segments that no row on any shard references anymore
+@Component
+@RequiredArgsConstructor
+public class BlobGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(BlobGarbageCollector.class);
+
+    private final ObjectProvider<BlobStore> blobStore;
+    private final ObjectProvider<AttachmentStore> attachmentStore;
+    private final ObjectProvider<SegmentArchive> segmentArchive;
+    private final BlobStoreProperties properties;
+    private final NoteRepository noteRepository;
+    private final AttachmentRepository attachmentRepository;
+    private final NoteRevisionRepository noteRevisionRepository;
+    private final NoteShards noteShards;
+
+    @Scheduled(fixedDelayString = "${notes.blob.gc-interval:PT1H}",
+            initialDelayString = "${notes.blob.gc-interval:PT1H}")
+    public int collect() {
+        int deleted = 0;
+        BlobStore bodies = blobStore.getIfAvailable();
+        if (bodies != null) {
+            // Revision snapshots share the blobs of the bodies they copied
+            Set<String> referenced = new HashSet<>(noteShards.scatter(noteRepository::findContentHashes));
+            referenced.addAll(noteShards.scatter(noteRevisionRepository::findContentHashes));
+            deleted = bodies.collectGarbage(referenced::contains, properties.getGcGracePeriod());
+            if (deleted > 0) {
+                logger.info("Deleted {} unreferenced note body blobs", deleted);
+            }
+        }
+
+        int deletedAttachments = 0;
+        AttachmentStore attachments = attachmentStore.getIfAvailable();
+        if (attachments != null) {
+            Set<String> attached = new HashSet<>(noteShards.scatter(attachmentRepository::findContentHashes));
+            deletedAttachments = attachments.collectGarbage(attached::contains, properties.getGcGracePeriod());
+            if (deletedAttachments > 0) {
+                logger.info("Deleted {} unreferenced attachment files", deletedAttachments);
+            }
+        }
+
+        int deletedSegments = 0;
+        SegmentArchive archive = segmentArchive.getIfAvailable();
+        if (archive != null) {
+            Set<String> segments = new HashSet<>(noteShards.scatter(noteRepository::findArchiveSegments));
+            deletedSegments = archive.collectGarbage(segments::contains, properties.getGcGracePeriod());
+            if (deletedSegments > 0) {
+                logger.info("Deleted {} archive segments without archived notes", deletedSegments);
+            }
+        }
+        return deleted + deletedAttachments + deletedSegments;
+    }
+}
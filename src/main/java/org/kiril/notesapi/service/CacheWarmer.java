@@ -0,0 +1,78 @@
+package org.kiril.notesapi.service;
+
+import org.kiril.notesapi.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Preloads the note lists, and with them the single notes, of the most recently active users at
+ * startup. Application runners finish before Spring Boot switches readiness to accepting traffic,
+ * so a node only reports ready once warm-up is done or its time budget is used up.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notes.cache.warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class CacheWarmer implements ApplicationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(CacheWarmer.class);
+
+    private final NoteService noteService;
+    private final NoteRepository noteRepository;
+    private final NoteShards noteShards;
+    private final CacheWarmupProperties properties;
+
+    public CacheWarmer(NoteService noteService, NoteRepository noteRepository, NoteShards noteShards,
+                       CacheWarmupProperties properties) {
+        this.noteService = noteService;
+        this.noteRepository = noteRepository;
+        this.noteShards = noteShards;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Long> userIds;
+        try {
+            userIds = noteShards.scatter(
+                    () -> noteRepository.findRecentlyActiveUserIds(PageRequest.of(0, properties.getUsers())));
+        } catch (RuntimeException e) {
+            // A cold start is slower, not broken, so this never keeps the node from starting
+            logger.warn("Skipping cache warm-up, active users could not be read", e);
+            return;
+        }
+
+        AtomicInteger warmed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(properties.getParallelism());
+        for (Long userId : userIds) {
+            executor.execute(() -> {
+                try {
+                    noteService.preloadNotes(userId);
+                    warmed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    logger.warn("Could not warm the notes of user {}", userId, e);
+                }
+            });
+        }
+        executor.shutdown();
+
+        long remaining = properties.getTimeBudget().toNanos() - (System.nanoTime() - start);
+        if (!executor.awaitTermination(Math.max(remaining, 0), TimeUnit.NANOSECONDS)) {
+            executor.shutdownNow();
+            logger.info("Cache warm-up stopped after {} with {} of {} users loaded",
+                    properties.getTimeBudget(), warmed.get(), userIds.size());
+            return;
+        }
+        logger.info("Cache warm-up loaded {} of {} users in {} ms",
+                warmed.get(), userIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+}
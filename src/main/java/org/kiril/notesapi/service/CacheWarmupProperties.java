@@ -0,0 +1,21 @@
+package org.kiril.notesapi.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notes.cache.warmup")
+public class CacheWarmupProperties {
+    private boolean enabled = true;
+
+    // Most recently active users per shard whose note lists are preloaded
+    private int users = 500;
+
+    // Users loaded at the same time, keeping the extra database load at startup bounded
+    private int parallelism = 4;
+
+    // The node reports ready after this long even if warm-up hasn't finished
+    private Duration timeBudget = Duration.ofSeconds(30);
+}
@@ -0,0 +1,21 @@
+package org.kiril.notesapi.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notes.archive")
+public class NoteArchiveProperties {
+    // Off by default: needs notes.blob.archive-directory on a volume shared by all nodes
+    private boolean enabled;
+
+    // Notes not updated for this long move into the segment archive
+    private Duration coldAfter = Duration.ofDays(180);
+
+    private Duration interval = Duration.ofHours(6);
+
+    // Notes archived per transaction; one run writes all its batches into a single segment
+    private int batchSize = 500;
+}
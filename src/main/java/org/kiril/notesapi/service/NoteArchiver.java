@@ -0,0 +1,105 @@
+package org.kiril.notesapi.service;
+
+import org.kiril.notesapi.blob.SegmentArchive;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.repository.NoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Moves the bodies of notes nobody has updated for a while into the {@link SegmentArchive},
+ * leaving the row as a stub. Reads rehydrate through {@code NoteBodies}; the next write puts the
+ * body back into the notes table. Only inline bodies are archived, since blob store bodies are
+ * already off the table.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notes.archive", name = "enabled", havingValue = "true")
+public class NoteArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(NoteArchiver.class);
+
+    private final NoteRepository noteRepository;
+    private final SegmentArchive segmentArchive;
+    private final NoteShards noteShards;
+    private final NoteArchiveProperties properties;
+    private final TransactionTemplate transaction;
+
+    public NoteArchiver(NoteRepository noteRepository, SegmentArchive segmentArchive, NoteShards noteShards,
+                        NoteArchiveProperties properties, PlatformTransactionManager transactionManager) {
+        this.noteRepository = noteRepository;
+        this.segmentArchive = segmentArchive;
+        this.noteShards = noteShards;
+        this.properties = properties;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${notes.archive.interval:PT6H}",
+            initialDelayString = "${notes.archive.interval:PT6H}")
+    public int archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getColdAfter());
+        AtomicInteger archived = new AtomicInteger();
+        noteShards.onEachShard(() -> archived.addAndGet(archiveShard(cutoff)));
+        if (archived.get() > 0) {
+            logger.info("Archived {} notes not updated since {}", archived.get(), cutoff);
+        }
+        return archived.get();
+    }
+
+    private int archiveShard(LocalDateTime cutoff) {
+        PageRequest batch = PageRequest.ofSize(properties.getBatchSize());
+        SegmentArchive.Writer writer = null;
+        int archived = 0;
+        long afterId = 0;
+        try {
+            while (true) {
+                List<Note> notes = noteRepository.findArchivable(cutoff, afterId, batch);
+                if (notes.isEmpty()) {
+                    return archived;
+                }
+                if (writer == null) {
+                    writer = segmentArchive.newSegment();
+                }
+                archived += archiveBatch(writer, notes);
+                afterId = notes.get(notes.size() - 1).getId();
+            }
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    private int archiveBatch(SegmentArchive.Writer writer, List<Note> notes) {
+        SegmentArchive.Location[] locations = new SegmentArchive.Location[notes.size()];
+        int[] contentLengths = new int[notes.size()];
+        for (int i = 0; i < notes.size(); i++) {
+            byte[] content = notes.get(i).getContent().getBytes(StandardCharsets.UTF_8);
+            locations[i] = writer.append(content);
+            contentLengths[i] = content.length;
+        }
+        // Rows only point into the segment once its bytes are durable
+        writer.sync();
+
+        Integer archived = transaction.execute(status -> {
+            int updated = 0;
+            for (int i = 0; i < notes.size(); i++) {
+                Note note = notes.get(i);
+                SegmentArchive.Location location = locations[i];
+                updated += noteRepository.archive(note.getId(), note.getVersion(), location.segment(),
+                        location.offset(), location.length(), contentLengths[i]);
+            }
+            return updated;
+        });
+        return archived == null ? 0 : archived;
+    }
+}
@@ -0,0 +1,17 @@
+package org.kiril.notesapi.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "notes.revisions")
+public class NoteRevisionProperties {
+    // Every n-th revision is a full snapshot, so reading any revision applies fewer than n edits
+    private int snapshotInterval = 10;
+
+    private Duration retention = Duration.ofDays(90);
+
+    private Duration pruneInterval = Duration.ofHours(1);
+}
@@ -0,0 +1,49 @@
+package org.kiril.notesapi.service;
+
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.NoteRevision;
+import org.kiril.notesapi.repository.NoteRevisionRepository;
+import org.kiril.notesapi.text.TextDelta;
+import org.kiril.notesapi.text.TextEdit;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Writes a note's previous state on every update: a backward edit against the new state, or a full
+ * snapshot for every {@code snapshotInterval}-th revision. A large snapshot is stored like a note
+ * body, as a reference to its blob.
+ */
+@Component
+@RequiredArgsConstructor
+public class NoteRevisionRecorder {
+    private final NoteRevisionRepository noteRevisionRepository;
+    private final NoteRevisionProperties properties;
+    private final NoteBodies noteBodies;
+
+    // Must run before the changed note is flushed, while it still has its old version
+    public void record(Note note, String previousTitle, String previousContent, String currentContent) {
+        // Hibernate does not bump the version of an unchanged note, so there is nothing to record
+        if (Objects.equals(previousTitle, note.getTitle()) && Objects.equals(previousContent, currentContent)) {
+            return;
+        }
+        long previousVersion = note.getVersion();
+
+        NoteRevision revision = new NoteRevision();
+        revision.setNote(note);
+        revision.setRevision(previousVersion);
+        revision.setTitle(previousTitle);
+        if (previousVersion % properties.getSnapshotInterval() == 0) {
+            revision.setSnapshot(true);
+            noteBodies.writeSnapshot(revision, previousContent);
+        } else {
+            TextEdit backward = TextDelta.diff(currentContent, previousContent);
+            revision.setContent(backward.insert());
+            revision.setEditOffset(backward.offset());
+            revision.setEditDelete(backward.delete());
+        }
+        noteRevisionRepository.save(revision);
+    }
+}
@@ -0,0 +1,97 @@
+package org.kiril.notesapi.service;
+
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.dto.NoteRevisionDto;
+import org.kiril.notesapi.model.NoteRevision;
+import org.kiril.notesapi.repository.NoteRevisionRepository;
+import org.kiril.notesapi.text.TextDelta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.kiril.notesapi.config.MetricsConfig.SERVICE_METRIC;
+
+/**
+ * Reads the history written by {@link NoteRevisionRecorder}. A revision is rebuilt from the nearest
+ * newer snapshot or from the live note, so it takes fewer than {@code snapshotInterval} edits, and
+ * pruning the oldest rows never breaks the newer chains.
+ */
+@Service
+@RequiredArgsConstructor
+@Timed(SERVICE_METRIC)
+public class NoteRevisionService {
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionService.class);
+
+    private final NoteRevisionRepository noteRevisionRepository;
+    private final NoteService noteService;
+    private final NoteBodies noteBodies;
+    private final NoteShards noteShards;
+    private final NoteRevisionProperties properties;
+
+    @Transactional(readOnly = true)
+    public Page<NoteRevisionDto> getRevisions(Long noteId, Pageable pageable) {
+        return noteService.onAccessibleNote(noteId, false,
+                note -> noteRevisionRepository.findSummaries(noteId, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public NoteRevisionDto getRevision(Long noteId, long revision) {
+        return noteService.onAccessibleNote(noteId, false, note -> {
+            long head = note.getVersion();
+            if (revision == head) {
+                return new NoteRevisionDto(head, note.getTitle(), noteBodies.read(note), note.getUpdatedAt());
+            }
+            if (revision < 0 || revision > head) {
+                throw revisionNotFound(revision);
+            }
+
+            // Rows from the requested revision up to the next snapshot, or up to the live note
+            long anchor = Math.min(head - 1, nextSnapshot(revision));
+            List<NoteRevision> chain = noteRevisionRepository.findChain(noteId, revision, anchor);
+            if (chain.size() != anchor - revision + 1) {
+                throw revisionNotFound(revision);
+            }
+
+            NoteRevision newest = chain.get(0);
+            String content = newest.isSnapshot() ? noteBodies.readSnapshot(newest) : noteBodies.read(note);
+            for (NoteRevision row : chain.subList(newest.isSnapshot() ? 1 : 0, chain.size())) {
+                content = TextDelta.apply(content, List.of(row.backwardEdit()));
+            }
+            NoteRevision requested = chain.get(chain.size() - 1);
+            return new NoteRevisionDto(revision, requested.getTitle(), content, requested.getCreatedAt());
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${notes.revisions.prune-interval:PT1H}",
+            initialDelayString = "${notes.revisions.prune-interval:PT1H}")
+    public int prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getRetention());
+        AtomicInteger deleted = new AtomicInteger();
+        noteShards.onEachShard(() -> deleted.addAndGet(noteRevisionRepository.deleteOlderThan(cutoff)));
+        if (deleted.get() > 0) {
+            logger.info("Pruned {} note revisions older than {}", deleted.get(), cutoff);
+        }
+        return deleted.get();
+    }
+
+    private long nextSnapshot(long revision) {
+        int interval = properties.getSnapshotInterval();
+        return (revision + interval - 1) / interval * interval;
+    }
+
+    private ResponseStatusException revisionNotFound(long revision) {
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Revision not found: " + revision);
+    }
+}
@@ -1,83 +1,256 @@
 package org.kiril.notesapi.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.cache.NoteBatchCache;
+import org.kiril.notesapi.cache.NoteCacheKeys;
+import org.kiril.notesapi.cache.NoteFieldsCache;
+import org.kiril.notesapi.dto.NoteContentPatchDto;
 import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.exception.ApiException;
 import org.kiril.notesapi.model.Note;
 import org.kiril.notesapi.model.User;
+import org.kiril.notesapi.readmodel.NoteJournal;
+import org.kiril.notesapi.readmodel.NoteReadModel;
 import org.kiril.notesapi.repository.NoteRepository;
 import org.kiril.notesapi.repository.UserRepository;
-import org.kiril.notesapi.security.UserPrincipal;
+import org.kiril.notesapi.security.Caller;
+import org.kiril.notesapi.text.TextDelta;
 import org.springframework.cache.annotation.*;
-import org.springframework.security.access.AccessDeniedException;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.http.HttpStatus;
-import org.springframework.web.server.ResponseStatusException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 import static org.kiril.notesapi.config.CacheConfig.*;
+import static org.kiril.notesapi.config.MetricsConfig.SERVICE_METRIC;
+import static org.kiril.notesapi.exception.NoteErrors.*;
 
 import org.springframework.cache.annotation.Cacheable;
 
 
 @Service
 @RequiredArgsConstructor
+@Timed(SERVICE_METRIC)
 public class NoteService {
+    // Upper bound for one multi-get, keeping the IN list and the MGET reasonably sized
+    public static final int MAX_NOTE_IDS = 100;
+    private static final String READ_MODEL_NOT_READY = "!@noteReadModel.isReady()";
+    private static final ApiException TOO_MANY_IDS =
+            ApiException.badRequest("At most " + MAX_NOTE_IDS + " ids per request");
+
     private final NoteRepository noteRepository;
     private final UserRepository userRepository;
-
+    private final NoteShards noteShards;
+    private final NoteFieldsCache noteFieldsCache;
+    private final NoteBatchCache noteBatchCache;
+    private final NoteBodies noteBodies;
+    private final NoteRevisionRecorder noteRevisionRecorder;
+    private final NoteJournal noteJournal;
+    private final NoteReadModel readModel;
+    private final EntityManager entityManager;
+
+    // A ready read model is this node's cache, and it may lag other nodes' writes by a poll interval,
+    // so its results are not written to the shared Redis caches, where they would outlive the evict
     @Transactional(readOnly = true)
-    @Caching(cacheable = {
-            @Cacheable(value = NOTES_CACHE,
-                    key = "'admin:all'",
-                    condition = "@noteService.isAdmin() && #userId == null"),
-            @Cacheable(value = NOTES_CACHE,
-                    key = "'user:' + #userId",
-                    condition = "#userId != null"),
-            @Cacheable(value = NOTES_CACHE,
-                    key = "'user:' + @noteService.getCurrentUserId()",
-                    condition = "!@noteService.isAdmin() && #userId == null")
-    })
+    @Cacheable(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.OWNER_NOTES, sync = true,
+            condition = READ_MODEL_NOT_READY)
     public List<NoteDto> getNotes(Long userId) {
-        UserPrincipal currentUser = getCurrentUser();
-        boolean isAdmin = hasAdminRole(currentUser);
+        Caller caller = Caller.current();
+        boolean isAdmin = caller.admin();
 
         if (isAdmin) {
             if (userId != null) {
-                return noteRepository.findByUserId(userId).stream()
-                        .map(this::mapToDto)
-                        .toList();
+                return findUserNotes(userId);
+            }
+            List<NoteDto> modelled = readModel.isReady() ? readModel.getAllNotes() : null;
+            if (modelled != null) {
+                return modelled;
             }
-            return noteRepository.findAll().stream()
-                    .map(this::mapToDto)
+            return noteShards.scatter(() -> noteRepository.findAll().stream()
+                            .map(this::mapToDto)
+                            .toList())
+                    .stream()
+                    .sorted(Comparator.comparing(NoteDto::getId))
                     .toList();
         }
 
-        if (userId != null && !currentUser.getId().equals(userId)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to access these notes.");
+        if (userId != null && !caller.userId().equals(userId)) {
+            throw NOTES_FORBIDDEN;
         }
 
-        return noteRepository.findByUserId(currentUser.getId()).stream()
-                .map(this::mapToDto)
-                .toList();
+        return findUserNotes(caller.userId());
+    }
+
+    // Cache warm-up: loads a user's list into the notes cache without a caller, unless Redis already
+    // has it, and fills the per-note cache from it
+    @Transactional(readOnly = true)
+    @Cacheable(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.USER_NOTES, sync = true)
+    public List<NoteDto> preloadNotes(Long userId) {
+        List<NoteDto> notes = loadUserNotes(userId);
+        noteBatchCache.putAll(notes);
+        return notes;
+    }
+
+    // Same access rules as getNotes, but only the requested columns are read and returned
+    @Transactional(readOnly = true)
+    @Cacheable(value = NOTE_FIELDS_CACHE, keyGenerator = NoteCacheKeys.OWNER_NOTE_FIELDS)
+    public List<NoteDto> getNotes(Long userId, Set<NoteField> fields) {
+        Caller caller = Caller.current();
+        boolean isAdmin = caller.admin();
+
+        if (isAdmin && userId == null) {
+            return noteShards.scatter(() -> noteRepository.findProjectedAll(fields))
+                    .stream()
+                    .map(note -> restrictTo(note, fields))
+                    .sorted(Comparator.comparing(NoteDto::getId))
+                    .toList();
+        }
+
+        if (!isAdmin && userId != null && !caller.userId().equals(userId)) {
+            throw NOTES_FORBIDDEN;
+        }
+
+        Long ownerId = userId != null ? userId : caller.userId();
+        return noteShards.onUserShard(ownerId, () -> noteRepository.findProjectedByUserId(ownerId, fields).stream()
+                .map(note -> restrictTo(note, fields))
+                .toList());
     }
 
+    // Applies getNotes' access rules and resolves whose notes a stream covers: the caller's own
+    // unless an admin names a user, or null for every note. Streams call this before the response
+    // starts, so a refusal is still an ordinary error response.
+    public Long streamOwner(Long userId) {
+        Caller caller = Caller.current();
+        if (caller.admin()) {
+            return userId;
+        }
+        if (userId != null && !caller.userId().equals(userId)) {
+            throw NOTES_FORBIDDEN;
+        }
+        return caller.userId();
+    }
+
+    // Hands notes to the consumer one at a time as rows are read, bypassing the list caches
     @Transactional(readOnly = true)
-    @Cacheable(value = NOTE_CACHE, key = "#id")
+    public void streamNotes(Long userId, Consumer<NoteDto> consumer) {
+        Caller caller = Caller.current();
+        boolean isAdmin = caller.admin();
+
+        if (isAdmin && userId == null) {
+            noteShards.forEachShard(() -> streamTo(noteRepository.streamAll(), consumer));
+            return;
+        }
+
+        if (!isAdmin && userId != null && !caller.userId().equals(userId)) {
+            throw NOTES_FORBIDDEN;
+        }
+
+        Long ownerId = userId != null ? userId : caller.userId();
+        noteShards.onUserShard(ownerId, () -> {
+            streamTo(noteRepository.streamByUserId(ownerId), consumer);
+            return null;
+        });
+    }
+
+    // A note missing from the model may have been created on another node since the last poll
+    @Transactional(readOnly = true)
+    @Cacheable(value = NOTE_CACHE, key = "#id", sync = true, condition = READ_MODEL_NOT_READY)
     public NoteDto getNote(Long id) {
-        Note note = findNoteById(id);
-        checkNoteAccess(note);
-        return mapToDto(note);
+        NoteDto note = readModel.isReady() ? readModel.getNote(id) : null;
+        if (note != null) {
+            Caller caller = Caller.current();
+            if (!caller.admin() && !note.getUserId().equals(caller.userId())) {
+                throw NOTE_FORBIDDEN;
+            }
+            return note;
+        }
+        if (isAdmin()) {
+            return noteShards.scatter(() -> noteRepository.findById(id)
+                            .map(this::mapToDto)
+                            .stream()
+                            .toList())
+                    .stream()
+                    .findFirst()
+                    .orElseThrow(() -> noteNotFound(id));
+        }
+        return noteShards.onUserShard(getCurrentUserId(), () -> {
+            Note note = findNoteById(id);
+            checkNoteAccess(note);
+            return mapToDto(note);
+        });
+    }
+
+    // Resolves cached notes with one MGET and loads the rest with one IN query, back-filling the cache
+    // in one pipeline. Notes that don't exist or belong to another user are left out, in request order.
+    @Transactional(readOnly = true)
+    public List<NoteDto> getNotesByIds(List<Long> ids) {
+        if (ids.size() > MAX_NOTE_IDS) {
+            throw TOO_MANY_IDS;
+        }
+        Caller caller = Caller.current();
+        boolean isAdmin = caller.admin();
+        Set<Long> requested = new LinkedHashSet<>(ids);
+
+        Map<Long, NoteDto> found = new HashMap<>(noteBatchCache.getAll(requested));
+        List<Long> misses = requested.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!misses.isEmpty()) {
+            List<NoteDto> loaded = isAdmin
+                    ? noteShards.scatter(() -> noteRepository.findAllById(misses).stream()
+                            .map(this::mapToDto)
+                            .toList())
+                    : noteShards.onUserShard(caller.userId(), () -> noteRepository.findAllById(misses).stream()
+                            .filter(note -> note.getUser().getId().equals(caller.userId()))
+                            .map(this::mapToDto)
+                            .toList());
+            noteBatchCache.putAll(loaded);
+            loaded.forEach(note -> found.put(note.getId(), note));
+        }
+
+        return requested.stream()
+                .map(found::get)
+                .filter(note -> note != null && (isAdmin || note.getUserId().equals(caller.userId())))
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    @Cacheable(value = NOTE_FIELDS_CACHE, keyGenerator = NoteCacheKeys.NOTE_FIELDS)
+    public NoteDto getNote(Long id, Set<NoteField> fields) {
+        if (isAdmin()) {
+            return noteShards.scatter(() -> noteRepository.findProjectedById(id, fields).stream().toList())
+                    .stream()
+                    .findFirst()
+                    .map(note -> restrictTo(note, fields))
+                    .orElseThrow(() -> noteNotFound(id));
+        }
+        Long currentUserId = getCurrentUserId();
+        return noteShards.onUserShard(currentUserId, () -> {
+            NoteDto note = noteRepository.findProjectedById(id, fields)
+                    .orElseThrow(() -> noteNotFound(id));
+            if (!note.getUserId().equals(currentUserId)) {
+                throw NOTE_FORBIDDEN;
+            }
+            return restrictTo(note, fields);
+        });
     }
 
     @Caching(
             evict = {
-                    @CacheEvict(value = NOTES_CACHE, key = "'user:' + @noteService.getCurrentUserId()"),
-                    @CacheEvict(value = NOTES_CACHE, key = "'admin:all'")
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.CALLER_NOTES),
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.ADMIN_NOTES)
             },
             put = {
                     @CachePut(value = NOTE_CACHE, key = "#result.id")
@@ -85,29 +258,32 @@ public class NoteService {
     )
     @Transactional
     public NoteDto createNote(NoteDto noteDto) {
-        UserPrincipal currentUser = getCurrentUser();
-        User user = userRepository.findById(currentUser.getId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
         if (isAdmin()) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admins are not allowed to create notes");
+            throw ADMIN_CREATE_FORBIDDEN;
         }
 
-        checkUserNoteExistsByTitle(noteDto.getTitle(), user.getId());
+        // A reference avoids reading the users table, which may live on another shard
+        Long userId = getCurrentUserId();
+        User user = userRepository.getReferenceById(userId);
 
         Note note = new Note();
         note.setTitle(noteDto.getTitle());
-        note.setContent(noteDto.getContent());
+        noteBodies.write(note, noteDto.getContent());
         note.setUser(user);
 
-        Note savedNote = noteRepository.save(note);
+        Note savedNote = noteShards.onUserShard(userId, () -> {
+            Note saved = noteRepository.saveAndFlush(note);
+            noteJournal.recordUpsert(saved, noteDto.getContent());
+            return saved;
+        });
+        noteFieldsCache.evict(userId, null);
         return mapToDto(savedNote);
     }
 
     @Caching(
             evict = {
-                    @CacheEvict(value = NOTES_CACHE, key = "'user:' + @noteService.getCurrentUserId()"),
-                    @CacheEvict(value = NOTES_CACHE, key = "'admin:all'")
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.CALLER_NOTES),
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.ADMIN_NOTES)
             },
             put = {
                     @CachePut(value = NOTE_CACHE, key = "#result.id")
@@ -115,29 +291,28 @@ public class NoteService {
     )
     @Transactional
     public NoteDto updateNote(Long id, NoteDto noteDto) {
-        UserPrincipal currentUser = getCurrentUser();
-        User user = userRepository.findById(currentUser.getId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found"));
-
         if (isAdmin()) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admins are not allowed to update notes");
+            throw ADMIN_UPDATE_FORBIDDEN;
         }
 
-        checkUserNoteExistsByTitle(noteDto.getTitle(), user.getId());
-
-        Note note = findNoteById(id);
-        checkNoteAccess(note);
-
-        note.setTitle(noteDto.getTitle());
-        note.setContent(noteDto.getContent());
-        Note updatedNote = noteRepository.save(note);
-        return mapToDto(updatedNote);
+        Long userId = getCurrentUserId();
+        NoteDto updated = noteShards.onUserShard(userId, () -> {
+            Note note = findNoteById(id);
+            checkNoteAccess(note);
+
+            change(note, noteDto.getTitle(), noteBodies.read(note), noteDto.getContent());
+            Note updatedNote = noteRepository.saveAndFlush(note);
+            noteJournal.recordUpsert(updatedNote, noteDto.getContent());
+            return mapToDto(updatedNote);
+        });
+        noteFieldsCache.evict(userId, id);
+        return updated;
     }
 
     @Caching(
             evict = {
-                    @CacheEvict(value = NOTES_CACHE, key = "'user:' + @noteService.getCurrentUserId()"),
-                    @CacheEvict(value = NOTES_CACHE, key = "'admin:all'")
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.CALLER_NOTES),
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.ADMIN_NOTES)
             },
             put = {
                     @CachePut(value = NOTE_CACHE, key = "#result.id")
@@ -145,92 +320,206 @@ public class NoteService {
     )
     @Transactional
     public NoteDto partialUpdateNote(Long id, Map<String, Object> updates) {
-        Note note = findNoteById(id);
-        checkNoteAccess(note);
+        boolean admin = isAdmin();
+        Supplier<NoteDto> update = () -> {
+            Note note = findNoteById(id);
+            checkNoteAccess(note);
+            if (admin) {
+                // Reached through the note's shard rather than the owner's, so fence the owner here
+                noteShards.fence(note.getUser().getId());
+            }
 
-        if (updates.containsKey("title")) {
-            note.setTitle((String) updates.get("title"));
+            String previousContent = noteBodies.read(note);
+            String content = updates.containsKey("content") ? (String) updates.get("content") : previousContent;
+            change(note,
+                    updates.containsKey("title") ? (String) updates.get("title") : note.getTitle(),
+                    previousContent,
+                    content);
+
+            Note updatedNote = noteRepository.saveAndFlush(note);
+            noteJournal.recordUpsert(updatedNote, content);
+            return mapToDto(updatedNote);
+        };
+
+        NoteDto updated;
+        if (admin) {
+            String shard = noteShards.locate(() -> noteRepository.existsById(id));
+            if (shard == null) {
+                throw noteNotFound(id);
+            }
+            updated = noteShards.onShard(shard, update);
+        } else {
+            updated = noteShards.onUserShard(getCurrentUserId(), update);
         }
-        if (updates.containsKey("content")) {
-            note.setContent((String) updates.get("content"));
+        noteFieldsCache.evict(updated.getUserId(), id);
+        return updated;
+    }
+
+    // Only the edits travel over the wire; the result carries the new version but not the body,
+    // so the cached note is evicted rather than replaced
+    @Caching(
+            evict = {
+                    @CacheEvict(value = NOTE_CACHE, key = "#id"),
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.CALLER_NOTES),
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.ADMIN_NOTES)
+            }
+    )
+    @Transactional
+    public NoteDto patchNoteContent(Long id, NoteContentPatchDto patch) {
+        if (isAdmin()) {
+            throw ADMIN_UPDATE_FORBIDDEN;
         }
 
-        Note updatedNote = noteRepository.save(note);
-        return mapToDto(updatedNote);
+        Long userId = getCurrentUserId();
+        NoteDto patched = noteShards.onUserShard(userId, () -> {
+            Note note = findNoteById(id);
+            checkNoteAccess(note);
+            if (!note.getVersion().equals(patch.getBaseVersion())) {
+                throw ApiException.conflict(
+                        "The note has changed since version " + patch.getBaseVersion() + "; current version is " + note.getVersion());
+            }
+
+            String previousContent = noteBodies.read(note);
+            String content;
+            try {
+                content = TextDelta.apply(previousContent, patch.getEdits());
+            } catch (IllegalArgumentException e) {
+                throw ApiException.badRequest(e.getMessage());
+            }
+            change(note, note.getTitle(), previousContent, content);
+
+            Note patchedNote = noteRepository.saveAndFlush(note);
+            noteJournal.recordUpsert(patchedNote, content);
+            return mapToDto(patchedNote, false);
+        });
+        noteFieldsCache.evict(userId, id);
+        return patched;
     }
 
     @Caching(
             evict = {
                     @CacheEvict(value = NOTE_CACHE, key = "#id"),
-                    @CacheEvict(value = NOTES_CACHE, key = "'user:' + @noteService.getCurrentUserId()"),
-                    @CacheEvict(value = NOTES_CACHE, key = "'admin:all'")
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.CALLER_NOTES),
+                    @CacheEvict(value = NOTES_CACHE, keyGenerator = NoteCacheKeys.ADMIN_NOTES)
             }
     )
     @Transactional
     public void deleteNote(Long id) {
         if (isAdmin()) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Admins are not allowed to delete notes");
+            throw ADMIN_DELETE_FORBIDDEN;
         }
-        Note note = findNoteById(id);
-        checkNoteAccess(note);
-        noteRepository.delete(note);
+        Long userId = getCurrentUserId();
+        noteShards.onUserShard(userId, () -> {
+            Note note = findNoteById(id);
+            checkNoteAccess(note);
+            noteJournal.recordDelete(note);
+            noteRepository.delete(note);
+            return null;
+        });
+        noteFieldsCache.evict(userId, id);
+    }
+
+    // Loads the note on its shard and applies the access rules above before running the action;
+    // used by features that hang off a note, such as attachments and revisions
+    public <T> T onAccessibleNote(Long noteId, boolean write, Function<Note, T> action) {
+        if (isAdmin()) {
+            if (write) {
+                throw ADMIN_UPDATE_FORBIDDEN;
+            }
+            String shard = noteShards.locate(() -> noteRepository.existsById(noteId));
+            if (shard == null) {
+                throw noteNotFound(noteId);
+            }
+            return noteShards.onShard(shard, () -> action.apply(findNoteById(noteId)));
+        }
+        return noteShards.onUserShard(getCurrentUserId(), () -> {
+            Note note = findNoteById(noteId);
+            checkNoteAccess(note);
+            return action.apply(note);
+        });
     }
 
     public boolean isAdmin() {
-        UserPrincipal currentUser = getCurrentUser();
-        return hasAdminRole(currentUser);
+        return Caller.current().admin();
     }
 
     public Long getCurrentUserId() {
-        return getCurrentUser().getId();
+        return Caller.current().userId();
     }
 
 
-    private Note findNoteById(Long id) {
-        return noteRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
-                        "Note not found with id: " + id));
+    // Every update goes through here so the previous state lands in the revision history
+    private void change(Note note, String title, String previousContent, String content) {
+        String previousTitle = note.getTitle();
+        note.setTitle(title);
+        boolean contentChanged = !Objects.equals(previousContent, content);
+        // A real change to an archived note moves its body back into the hot table; a no-op write
+        // leaves it archived, since it bumps no version and so has no revision to record
+        if (contentChanged || (note.getArchiveSegment() != null && !Objects.equals(previousTitle, title))) {
+            noteBodies.write(note, content);
+        }
+        noteRevisionRecorder.record(note, previousTitle, previousContent, content);
     }
 
-    private void checkNoteAccess(Note note) {
-        UserPrincipal currentUser = getCurrentUser();
-        boolean isAdmin = hasAdminRole(currentUser);
-        boolean isOwner = note.getUser().getId().equals(currentUser.getId());
-
-        if (!isAdmin && !isOwner) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "You do not have permission to access this note.");
+    // Detaching each note keeps the persistence context from growing with the result
+    private void streamTo(Stream<Note> notes, Consumer<NoteDto> consumer) {
+        try (notes) {
+            notes.forEach(note -> {
+                consumer.accept(mapToDto(note));
+                entityManager.detach(note);
+            });
         }
     }
 
-    private void checkUserNoteExistsByTitle(String title, Long userId) {
-        if (noteRepository.existsByTitleAndUserId(title, userId)) {
-            throw new ResponseStatusException(
-                    HttpStatus.BAD_REQUEST, "You already have a note with this title."
-            );
+    private List<NoteDto> findUserNotes(Long userId) {
+        List<NoteDto> modelled = readModel.isReady() ? readModel.getNotes(userId) : null;
+        return modelled != null ? modelled : loadUserNotes(userId);
+    }
+
+    private List<NoteDto> loadUserNotes(Long userId) {
+        return noteShards.onUserShard(userId, () -> noteRepository.findByUserId(userId).stream()
+                .map(this::mapToDto)
+                .toList());
+    }
+
+    // The projection always carries the owner for access checks; drop it unless it was asked for
+    private NoteDto restrictTo(NoteDto note, Set<NoteField> fields) {
+        if (!fields.contains(NoteField.USER_ID)) {
+            note.setUserId(null);
         }
+        return note;
     }
 
-    private boolean hasAdminRole(UserPrincipal user) {
-        return user.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+    private Note findNoteById(Long id) {
+        return noteRepository.findById(id)
+                .orElseThrow(() -> noteNotFound(id));
     }
 
-    private UserPrincipal getCurrentUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !(authentication.getPrincipal() instanceof UserPrincipal)) {
-            throw new AccessDeniedException("User not authenticated");
+    // Owners and admins may access a note; also used for the note's attachments
+    public void checkNoteAccess(Note note) {
+        Caller caller = Caller.current();
+        boolean isOwner = note.getUser().getId().equals(caller.userId());
+
+        if (!caller.admin() && !isOwner) {
+            throw NOTE_FORBIDDEN;
         }
-        return (UserPrincipal) authentication.getPrincipal();
     }
 
     private NoteDto mapToDto(Note note) {
+        return mapToDto(note, true);
+    }
+
+    private NoteDto mapToDto(Note note, boolean withContent) {
         NoteDto dto = new NoteDto();
         dto.setId(note.getId());
         dto.setTitle(note.getTitle());
-        dto.setContent(note.getContent());
+        if (withContent) {
+            dto.setContent(note.hasInlineContent() ? note.getContent() : noteBodies.read(note));
+        }
         dto.setCreatedAt(note.getCreatedAt());
         dto.setUpdatedAt(note.getUpdatedAt());
         dto.setUserId(note.getUser().getId());
+        dto.setVersion(note.getVersion());
         return dto;
     }
 
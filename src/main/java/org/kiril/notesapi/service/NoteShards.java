@@ -0,0 +1,161 @@
+package org.kiril.notesapi.service;
+
+import org.kiril.notesapi.datasource.ShardContext;
+import org.kiril.notesapi.datasource.ShardFence;
+import org.kiril.notesapi.datasource.ShardRouter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * Runs note repository work on the right shard. Without sharding every call simply runs
+ * in place, so NoteService reads the same either way.
+ */
+@Component
+public class NoteShards {
+    private final ShardRouter shardRouter;
+    private final ShardFence shardFence;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate newReadOnlyTransaction;
+    private final ExecutorService scatterExecutor;
+
+    @Autowired
+    public NoteShards(ObjectProvider<ShardRouter> shardRouter, ObjectProvider<ShardFence> shardFence,
+                      PlatformTransactionManager transactionManager) {
+        this.shardRouter = shardRouter.getIfAvailable();
+        this.shardFence = shardFence.getIfAvailable();
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.newReadOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.newReadOnlyTransaction.setReadOnly(true);
+        this.newReadOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.scatterExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    private NoteShards() {
+        this.shardRouter = null;
+        this.shardFence = null;
+        this.readOnlyTransaction = null;
+        this.newReadOnlyTransaction = null;
+        this.scatterExecutor = null;
+    }
+
+    public static NoteShards unsharded() {
+        return new NoteShards();
+    }
+
+    // In a write transaction, checks the shard's move fence before running the action and holds
+    // the move off until it commits; reads go straight to the shard
+    public <T> T onUserShard(Long userId, Supplier<T> action) {
+        if (shardRouter == null) {
+            return action.get();
+        }
+        if (!isWriteTransaction()) {
+            return ShardContext.callOn(shardRouter.shardFor(userId), action);
+        }
+        if (shardRouter.isMoving(userId)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Your notes are being moved, please retry shortly.");
+        }
+        return ShardContext.callOn(shardRouter.shardFor(userId), () -> {
+            shardFence.check(userId);
+            return action.get();
+        });
+    }
+
+    // For writes that find the shard through the note rather than the user, such as an admin's
+    // edits; call on the note's shard before anything is written
+    public void fence(Long userId) {
+        if (shardFence != null && isWriteTransaction()) {
+            shardFence.check(userId);
+        }
+    }
+
+    public <T> T onShard(String shardName, Supplier<T> action) {
+        return shardRouter == null ? action.get() : ShardContext.callOn(shardName, action);
+    }
+
+    // Runs the query on every shard in parallel, each in its own read-only transaction
+    public <T> List<T> scatter(Supplier<List<T>> query) {
+        if (shardRouter == null) {
+            return query.get();
+        }
+        List<CompletableFuture<List<T>>> futures = shardRouter.getShardNames().stream()
+                .map(shardName -> CompletableFuture.supplyAsync(() -> ShardContext.callOn(shardName,
+                        () -> readOnlyTransaction.execute(status -> query.get())), scatterExecutor))
+                .toList();
+
+        List<T> merged = new ArrayList<>();
+        try {
+            futures.forEach(future -> merged.addAll(future.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return merged;
+    }
+
+    // Runs the action on one shard after another on the calling thread, each in its own read-only
+    // transaction, for results too large to collect in memory
+    public void forEachShard(Runnable action) {
+        if (shardRouter == null) {
+            action.run();
+            return;
+        }
+        for (String shardName : shardRouter.getShardNames()) {
+            ShardContext.callOn(shardName, () -> newReadOnlyTransaction.execute(status -> {
+                action.run();
+                return null;
+            }));
+        }
+    }
+
+    // Runs the action once per shard on the calling thread; the action manages its own transaction
+    public void onEachShard(Runnable action) {
+        if (shardRouter == null) {
+            action.run();
+            return;
+        }
+        for (String shardName : shardRouter.getShardNames()) {
+            ShardContext.callOn(shardName, () -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+
+    // For callers keeping state per shard; the primary alone when sharding is off
+    public List<String> shardNames() {
+        return shardRouter == null ? List.of(ShardRouter.PRIMARY_SHARD) : shardRouter.getShardNames();
+    }
+
+    private static boolean isWriteTransaction() {
+        return TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    // Finds the shard holding a note; only needed for admins, whose notes aren't on their own shard
+    public String locate(Supplier<Boolean> exists) {
+        if (shardRouter == null) {
+            return ShardRouter.PRIMARY_SHARD;
+        }
+        List<String> matches = scatter(() -> exists.get() ? List.of(ShardContext.current()) : List.of());
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+}
@@ -0,0 +1,201 @@
+package org.kiril.notesapi.service;
+
+import lombok.RequiredArgsConstructor;
+import org.kiril.notesapi.datasource.ShardDirectory;
+import org.kiril.notesapi.datasource.ShardFence;
+import org.kiril.notesapi.datasource.ShardRouter;
+import org.kiril.notesapi.datasource.ShardRoutingDataSource;
+import org.kiril.notesapi.datasource.ShardingProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Moves all notes of one user, with their attachments, revisions and journal entries, to another
+ * shard while the application keeps serving them. A fence on the source shard refuses the user's
+ * writes on every node from before the copy until they are routed to the new shard; reads continue
+ * from the source until the node learns the new assignment. Admin requests start the move in the
+ * background, since it lasts at least one assignment refresh interval.
+ */
+@Service
+@ConditionalOnProperty(prefix = "notes.sharding", name = "enabled", havingValue = "true")
+@RequiredArgsConstructor
+public class ShardRebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    // Tables keyed by note_id that move together with the notes
+    private static final List<ChildTable> NOTE_CHILDREN = List.of(
+            new ChildTable("note_attachments",
+                    List.of("filename", "content_type", "byte_size", "sha256", "created_at", "note_id")),
+            new ChildTable("note_revisions",
+                    List.of("revision", "title", "snapshot", "content", "content_hash", "content_length", "edit_offset",
+                            "edit_delete", "created_at", "note_id")));
+
+    private static final String NOTE_COLUMNS =
+            "id, title, content, content_hash, content_length, archive_segment, archive_offset, archive_length, version, created_at, updated_at, user_id";
+
+    private final ShardRouter shardRouter;
+    private final ShardRoutingDataSource shardRoutingDataSource;
+    private final ShardDirectory shardDirectory;
+    private final ShardingProperties shardingProperties;
+    private final ShardFence shardFence;
+    private final ExecutorService moveExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    // Checks the request and runs the move in the background; false when the user is already on the target
+    public boolean startMove(Long userId, String targetShard) {
+        String sourceShard = sourceFor(userId, targetShard);
+        if (sourceShard == null) {
+            return false;
+        }
+        beginMove(userId);
+        try {
+            moveExecutor.execute(() -> {
+                try {
+                    move(userId, sourceShard, targetShard);
+                } catch (RuntimeException e) {
+                    logger.error("Moving notes of user {} from shard {} to {} failed", userId, sourceShard, targetShard, e);
+                } finally {
+                    shardRouter.endMove(userId);
+                }
+            });
+        } catch (RuntimeException e) {
+            shardRouter.endMove(userId);
+            throw e;
+        }
+        return true;
+    }
+
+    public int moveUser(Long userId, String targetShard) {
+        String sourceShard = sourceFor(userId, targetShard);
+        if (sourceShard == null) {
+            return 0;
+        }
+        beginMove(userId);
+        try {
+            return move(userId, sourceShard, targetShard);
+        } finally {
+            shardRouter.endMove(userId);
+        }
+    }
+
+    private String sourceFor(Long userId, String targetShard) {
+        if (!shardRouter.hasShard(targetShard)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown shard: " + targetShard);
+        }
+        String sourceShard = shardRouter.shardFor(userId);
+        return sourceShard.equals(targetShard) ? null : sourceShard;
+    }
+
+    private void beginMove(Long userId) {
+        try {
+            shardRouter.beginMove(userId);
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+
+    private int move(Long userId, String sourceShard, String targetShard) {
+        DataSource source = shardRoutingDataSource.getShard(sourceShard);
+        DataSource target = shardRoutingDataSource.getShard(targetShard);
+        try {
+            // From here on nothing the copy could miss is written to the source
+            shardFence.raise(sourceShard, userId, targetShard);
+            int moved;
+            try {
+                moved = inTransaction(target, jdbc -> copy(userId, new JdbcTemplate(source), jdbc));
+                shardFence.lower(targetShard, userId);
+                shardDirectory.assign(userId, targetShard);
+            } catch (RuntimeException e) {
+                shardFence.lower(sourceShard, userId);
+                throw e;
+            }
+            shardFence.markMoved(sourceShard, userId);
+
+            // Nodes that have not refreshed the assignment yet still read the source copy, so keep
+            // it for one refresh interval; the fence redirects their writes if they take longer
+            Thread.sleep(shardingProperties.getAssignmentRefreshInterval().toMillis());
+            inTransaction(source, jdbc -> {
+                deleteUserRows(userId, jdbc);
+                return null;
+            });
+
+            logger.info("Moved {} notes of user {} from shard {} to {}", moved, userId, sourceShard, targetShard);
+            return moved;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Shard move was interrupted");
+        }
+    }
+
+    // Copies the user's rows into the target, replacing whatever an earlier failed move left there
+    private int copy(Long userId, JdbcTemplate source, JdbcTemplate target) {
+        deleteUserRows(userId, target);
+
+        List<Map<String, Object>> notes = source.queryForList(
+                "SELECT " + NOTE_COLUMNS + " FROM notes WHERE user_id = ?", userId);
+        insertRows(target, "notes", List.of(NOTE_COLUMNS.split(", ")), notes);
+        for (ChildTable table : NOTE_CHILDREN) {
+            List<Map<String, Object>> rows = source.queryForList(
+                    "SELECT c.id, c." + String.join(", c.", table.columns()) + " FROM " + table.name() + " c "
+                            + "JOIN notes n ON n.id = c.note_id WHERE n.user_id = ?", userId);
+            List<String> columns = new ArrayList<>();
+            columns.add("id");
+            columns.addAll(table.columns());
+            insertRows(target, table.name(), columns, rows);
+        }
+
+        // Journal ids are per shard, so the source's entries are not copied; fresh ones on the
+        // target let every read model pick the notes up from there
+        target.update("INSERT INTO note_changes (note_id, user_id, type, version, created_at) "
+                + "SELECT id, user_id, 'UPSERT', version, ? FROM notes WHERE user_id = ?",
+                Timestamp.valueOf(LocalDateTime.now()), userId);
+        return notes.size();
+    }
+
+    private void insertRows(JdbcTemplate target, String table, List<String> columns, List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        target.batchUpdate(sql, rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .collect(Collectors.toList()));
+    }
+
+    private void deleteUserRows(Long userId, JdbcTemplate shard) {
+        for (ChildTable table : NOTE_CHILDREN) {
+            shard.update("DELETE FROM " + table.name() + " WHERE note_id IN (SELECT id FROM notes WHERE user_id = ?)",
+                    userId);
+        }
+        shard.update("DELETE FROM note_changes WHERE user_id = ?", userId);
+        shard.update("DELETE FROM notes WHERE user_id = ?", userId);
+    }
+
+    private <T> T inTransaction(DataSource shard, Function<JdbcTemplate, T> work) {
+        JdbcTemplate jdbc = new JdbcTemplate(shard);
+        return new TransactionTemplate(new DataSourceTransactionManager(shard))
+                .execute(status -> work.apply(jdbc));
+    }
+
+    private record ChildTable(String name, List<String> columns) {
+    }
+}
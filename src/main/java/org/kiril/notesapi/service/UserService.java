@@ -1,5 +1,7 @@
 package org.kiril.notesapi.service;
 
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import org.kiril.notesapi.dto.UserDto;
 import org.kiril.notesapi.model.User;
@@ -7,27 +9,42 @@ import org.kiril.notesapi.repository.UserRepository;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.kiril.notesapi.config.CacheConfig.USERS_CACHE;
+import static org.kiril.notesapi.config.MetricsConfig.SERVICE_METRIC;
 
 @Service
 @RequiredArgsConstructor
+@Timed(SERVICE_METRIC)
 public class UserService {
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
 
     @PreAuthorize("hasRole('ADMIN')")
-    @Cacheable(value = USERS_CACHE,
-            key = "'all'",
-            unless = "#result.isEmpty()")
+    @Cacheable(value = USERS_CACHE, key = "'all'", sync = true)
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::mapToUserDto)
                 .collect(Collectors.toList());
     }
 
+    @PreAuthorize("hasRole('ADMIN')")
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserDto> consumer) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                consumer.accept(mapToUserDto(user));
+                entityManager.detach(user);
+            });
+        }
+    }
+
     private UserDto mapToUserDto(User user) {
         UserDto dto = new UserDto();
         dto.setId(user.getId());
@@ -0,0 +1,62 @@
+package org.kiril.notesapi.text;
+
+import java.util.List;
+
+// Applies a list of edits that all refer to positions in the same base text
+public final class TextDelta {
+
+    private TextDelta() {
+    }
+
+    // A single edit turning from into to, covering everything between their common prefix and suffix
+    public static TextEdit diff(String from, String to) {
+        String source = from == null ? "" : from;
+        String target = to == null ? "" : to;
+        int shorter = Math.min(source.length(), target.length());
+
+        int prefix = 0;
+        while (prefix < shorter && source.charAt(prefix) == target.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < shorter - prefix
+                && source.charAt(source.length() - 1 - suffix) == target.charAt(target.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return new TextEdit(prefix, source.length() - prefix - suffix,
+                target.substring(prefix, target.length() - suffix));
+    }
+
+    /**
+     * Edits must be ordered by offset and must not overlap.
+     *
+     * @throws IllegalArgumentException if an edit is out of order or out of bounds
+     */
+    public static String apply(String base, List<TextEdit> edits) {
+        String text = base == null ? "" : base;
+        int growth = 0;
+        int previousEnd = 0;
+        for (TextEdit edit : edits) {
+            if (edit.offset() < previousEnd) {
+                throw new IllegalArgumentException("Edits must be ordered and must not overlap at offset " + edit.offset());
+            }
+            previousEnd = edit.offset() + edit.delete();
+            if (previousEnd > text.length()) {
+                throw new IllegalArgumentException("Edit at offset " + edit.offset() + " reaches past the end of the text");
+            }
+            growth += edit.insertLength() - edit.delete();
+        }
+
+        StringBuilder result = new StringBuilder(Math.max(0, text.length() + growth));
+        int position = 0;
+        for (TextEdit edit : edits) {
+            result.append(text, position, edit.offset());
+            if (edit.insert() != null) {
+                result.append(edit.insert());
+            }
+            position = edit.offset() + edit.delete();
+        }
+        result.append(text, position, text.length());
+        return result.toString();
+    }
+}
@@ -0,0 +1,14 @@
+package org.kiril.notesapi.text;
+
+import jakarta.validation.constraints.Min;
+
+/**
+ * Replaces {@code delete} characters at {@code offset} with {@code insert}. Offsets are UTF-16
+ * positions in the text the edit was made against.
+ */
+public record TextEdit(@Min(0) int offset, @Min(0) int delete, String insert) {
+
+    public int insertLength() {
+        return insert == null ? 0 : insert.length();
+    }
+}
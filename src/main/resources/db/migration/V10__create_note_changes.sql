@@ -0,0 +1,14 @@
+-- Append-only journal of note changes, written with each change when notes.read-model.enabled is
+-- set and tailed by every node's in-memory read model. Entries outlive their notes, so there is
+-- no foreign key; they are pruned after notes.read-model.retention.
+CREATE TABLE note_changes
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    note_id    BIGINT      NOT NULL,
+    user_id    BIGINT      NOT NULL,
+    type       VARCHAR(10) NOT NULL,
+    version    BIGINT      NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE INDEX idx_note_changes_created_at ON note_changes (created_at);
@@ -0,0 +1,35 @@
+-- PATCH could previously bypass the title check, so rename any existing duplicates first.
+-- The " (<id>)" suffix has to fit in VARCHAR(255) and may itself be taken by another of the
+-- user's titles, in which case " (<id>-<n>)" is tried until one is free.
+DO
+$$
+    DECLARE
+        duplicate RECORD;
+        suffix    TEXT;
+        candidate TEXT;
+        attempt   INT;
+    BEGIN
+        FOR duplicate IN
+            SELECT id, user_id, title
+            FROM notes
+            WHERE id NOT IN (SELECT MIN(id) FROM notes GROUP BY user_id, title)
+            ORDER BY id
+            LOOP
+                suffix := ' (' || duplicate.id || ')';
+                attempt := 0;
+                LOOP
+                    candidate := LEFT(duplicate.title, 255 - LENGTH(suffix)) || suffix;
+                    EXIT WHEN NOT EXISTS (SELECT 1
+                                          FROM notes
+                                          WHERE user_id = duplicate.user_id
+                                            AND title = candidate);
+                    attempt := attempt + 1;
+                    suffix := ' (' || duplicate.id || '-' || attempt || ')';
+                END LOOP;
+                UPDATE notes SET title = candidate WHERE id = duplicate.id;
+            END LOOP;
+    END
+$$;
+
+-- Also serves the per-user lookups in NoteRepository.findByUserId
+CREATE UNIQUE INDEX uk_notes_user_id_title ON notes (user_id, title);
@@ -0,0 +1,6 @@
+-- Explicit placements written by the shard rebalancer; users not listed follow the hash ring
+CREATE TABLE user_shard_assignments
+(
+    user_id BIGINT      NOT NULL PRIMARY KEY,
+    shard   VARCHAR(64) NOT NULL
+);
@@ -0,0 +1,5 @@
+-- Bodies above notes.blob.inline-threshold move to the blob store; the row keeps hash and size
+ALTER TABLE notes ADD COLUMN content_hash VARCHAR(64);
+ALTER TABLE notes ADD COLUMN content_length INTEGER;
+
+CREATE INDEX idx_notes_content_hash ON notes (content_hash);
@@ -0,0 +1,2 @@
+-- Optimistic locking; content patches are applied against a known version
+ALTER TABLE notes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
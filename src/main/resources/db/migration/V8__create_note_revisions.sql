@@ -0,0 +1,17 @@
+-- Earlier states of notes: periodic full snapshots, otherwise one backward edit per revision
+CREATE TABLE note_revisions
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    revision    BIGINT       NOT NULL,
+    title       VARCHAR(255) NOT NULL,
+    snapshot    BOOLEAN      NOT NULL,
+    content     TEXT,
+    edit_offset INTEGER,
+    edit_delete INTEGER,
+    created_at  TIMESTAMP(6),
+    note_id     BIGINT       NOT NULL,
+    CONSTRAINT fk_note_revisions_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+);
+
+CREATE UNIQUE INDEX uk_note_revisions_note_id_revision ON note_revisions (note_id, revision);
+CREATE INDEX idx_note_revisions_created_at ON note_revisions (created_at);
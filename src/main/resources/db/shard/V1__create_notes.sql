@@ -0,0 +1,13 @@
+-- Notes table on an additional shard. Users live on the primary, so there is no foreign key,
+-- and ids start at the shard's own offset to stay globally unique.
+CREATE TABLE notes
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH ${idStart}) PRIMARY KEY,
+    title      VARCHAR(255) NOT NULL,
+    content    TEXT,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    user_id    BIGINT       NOT NULL
+);
+
+CREATE UNIQUE INDEX uk_notes_user_id_title ON notes (user_id, title);
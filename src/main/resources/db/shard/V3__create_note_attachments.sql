@@ -0,0 +1,16 @@
+-- Attachment metadata on an additional shard. Ids start at the shard's offset like notes, so rows
+-- keep their ids when a user is moved between shards.
+CREATE TABLE note_attachments
+(
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY (START WITH ${idStart}) PRIMARY KEY,
+    filename     VARCHAR(255) NOT NULL,
+    content_type VARCHAR(255) NOT NULL,
+    byte_size    BIGINT       NOT NULL,
+    sha256       VARCHAR(64)  NOT NULL,
+    created_at   TIMESTAMP(6),
+    note_id      BIGINT       NOT NULL,
+    CONSTRAINT fk_note_attachments_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_note_attachments_note_id ON note_attachments (note_id);
+CREATE INDEX idx_note_attachments_sha256 ON note_attachments (sha256);
@@ -0,0 +1,8 @@
+-- Bodies of notes untouched for notes.archive.cold-after move into compressed segment files;
+-- the row keeps the segment, offset and compressed length, and content_length the raw size
+ALTER TABLE notes ADD COLUMN archive_segment VARCHAR(64);
+ALTER TABLE notes ADD COLUMN archive_offset BIGINT;
+ALTER TABLE notes ADD COLUMN archive_length INTEGER;
+
+CREATE INDEX idx_notes_updated_at ON notes (updated_at);
+CREATE INDEX idx_notes_archive_segment ON notes (archive_segment);
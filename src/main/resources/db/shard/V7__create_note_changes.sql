@@ -0,0 +1,13 @@
+-- Each shard keeps its own journal; readers track their position per shard, so ids need not be
+-- globally unique here
+CREATE TABLE note_changes
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    note_id    BIGINT      NOT NULL,
+    user_id    BIGINT      NOT NULL,
+    type       VARCHAR(10) NOT NULL,
+    version    BIGINT      NOT NULL,
+    created_at TIMESTAMP(6)
+);
+
+CREATE INDEX idx_note_changes_created_at ON note_changes (created_at);
@@ -0,0 +1,8 @@
+-- Raised by the shard rebalancer on the shard a user's notes are leaving; writes for the user
+-- are refused while it exists, and once moved is set readers are sent on to the new shard
+CREATE TABLE user_fences
+(
+    user_id BIGINT      NOT NULL PRIMARY KEY,
+    shard   VARCHAR(64) NOT NULL,
+    moved   BOOLEAN     NOT NULL DEFAULT FALSE
+);
@@ -0,0 +1,3 @@
+-- Snapshots of bodies above notes.blob.inline-threshold reference the body's blob instead of copying it
+ALTER TABLE note_revisions ADD COLUMN content_hash VARCHAR(64);
+ALTER TABLE note_revisions ADD COLUMN content_length INTEGER;
@@ -0,0 +1,101 @@
+package org.kiril.notesapi.benchmark;
+
+import org.kiril.notesapi.cache.NoteCacheKeys;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of resolving the getNotes cache key for a regular user: the former three SpEL conditions and
+ * key calling back into the service for the caller, against the key generator reading the resolved
+ * caller. See the README for how to run it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+    private final SpelExpressionParser parser = new SpelExpressionParser();
+    private final LegacyNoteService legacyService = new LegacyNoteService();
+    private final KeyGenerator ownerNotesKey = NoteCacheKeys.ownerNotes();
+
+    // Parsed once, as the cache interceptor caches parsed expressions; evaluated on every call
+    private Expression adminCondition;
+    private Expression userIdCondition;
+    private Expression callerCondition;
+    private Expression callerKey;
+
+    @Setup
+    public void setUp() {
+        UserPrincipal principal = new UserPrincipal(42L, "user@example.com", "password",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+
+        adminCondition = parser.parseExpression("@noteService.isAdmin() && #userId == null");
+        userIdCondition = parser.parseExpression("#userId != null");
+        callerCondition = parser.parseExpression("!@noteService.isAdmin() && #userId == null");
+        callerKey = parser.parseExpression("'user:' + @noteService.getCurrentUserId()");
+    }
+
+    @TearDown
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Benchmark
+    public Object spelConditionsAndKey() {
+        StandardEvaluationContext context = new StandardEvaluationContext();
+        context.setBeanResolver((evaluationContext, beanName) -> legacyService);
+        context.setVariable("userId", null);
+        // The interceptor evaluates every condition of the @Caching group, then the matching key
+        adminCondition.getValue(context, Boolean.class);
+        userIdCondition.getValue(context, Boolean.class);
+        if (Boolean.TRUE.equals(callerCondition.getValue(context, Boolean.class))) {
+            return callerKey.getValue(context);
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Object keyGenerator() {
+        return ownerNotesKey.generate(this, null, new Object[]{null});
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new org.openjdk.jmh.runner.Runner(new OptionsBuilder()
+                .include(CacheKeyBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    // The caller lookups as NoteService did them before the caller was resolved up front
+    public static class LegacyNoteService {
+        public boolean isAdmin() {
+            return currentUser().getAuthorities().stream()
+                    .anyMatch(authority -> authority.getAuthority().equals("ROLE_ADMIN"));
+        }
+
+        public Long getCurrentUserId() {
+            return currentUser().getId();
+        }
+
+        private UserPrincipal currentUser() {
+            Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+            return (UserPrincipal) authentication.getPrincipal();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.kiril.notesapi.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.kiril.notesapi.exception.ApiException;
+import org.kiril.notesapi.exception.NoteErrors;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a refused request from the service down to the serialized body: the former
+ * ResponseStatusException with a map body against the stackless, preallocated ApiException with its
+ * prebuilt problem body. The exception is thrown a number of frames deep, as it is behind the
+ * filter chain, the dispatcher and the service proxies. Run with {@code -prof gc} to see the
+ * allocation per request. See the README for how to run it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+    private static final String REASON = "You do not have permission to access this note.";
+
+    // Roughly the frames between the servlet container and NoteService in a real request
+    @Param({"100"})
+    private int depth;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private long noteId;
+
+    @Benchmark
+    public byte[] responseStatusExceptionWithMap() throws JsonProcessingException {
+        try {
+            throwAt(depth, () -> new ResponseStatusException(HttpStatus.FORBIDDEN, REASON));
+            return null;
+        } catch (ResponseStatusException ex) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", ex.getReason());
+            response.put("status", ex.getStatusCode().value());
+            return objectMapper.writeValueAsBytes(response);
+        }
+    }
+
+    @Benchmark
+    public byte[] preallocatedApiException() throws JsonProcessingException {
+        try {
+            throwAt(depth, () -> NoteErrors.NOTE_FORBIDDEN);
+            return null;
+        } catch (ApiException ex) {
+            return objectMapper.writeValueAsBytes(ex.getProblem());
+        }
+    }
+
+    // Not found carries the id, so a new exception is built per request, still without a stack trace
+    @Benchmark
+    public byte[] stacklessApiException() throws JsonProcessingException {
+        long id = ++noteId;
+        try {
+            throwAt(depth, () -> NoteErrors.noteNotFound(id));
+            return null;
+        } catch (ApiException ex) {
+            return objectMapper.writeValueAsBytes(ex.getProblem());
+        }
+    }
+
+    private interface Failure {
+        RuntimeException create();
+    }
+
+    private static void throwAt(int depth, Failure failure) {
+        if (depth == 0) {
+            throw failure.create();
+        }
+        throwAt(depth - 1, failure);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new org.openjdk.jmh.runner.Runner(new OptionsBuilder()
+                .include(ErrorResponseBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
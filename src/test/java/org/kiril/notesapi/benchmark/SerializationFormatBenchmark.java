@@ -0,0 +1,93 @@
+package org.kiril.notesapi.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.kiril.notesapi.dto.NoteDto;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CPU cost of writing and reading a note listing in each negotiated response format, with mappers
+ * set up as Boot's builder sets up the converters' ones. The payload size of each format is printed
+ * once per fork. Run with {@code -prof gc} to see the allocation per listing. See the README for how
+ * to run it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationFormatBenchmark {
+    private static final TypeReference<List<NoteDto>> NOTE_LIST = new TypeReference<>() {
+    };
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    @Param({"500"})
+    private int notes;
+
+    private ObjectMapper mapper;
+    private List<NoteDto> listing;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> Jackson2ObjectMapperBuilder.json();
+        };
+        mapper = builder
+                .modules(new JavaTimeModule())
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        listing = createNotes(notes);
+        encoded = mapper.writeValueAsBytes(listing);
+        System.out.printf("%s: %d bytes for %d notes%n", format, encoded.length, notes);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        return mapper.writeValueAsBytes(listing);
+    }
+
+    @Benchmark
+    public List<NoteDto> read() throws IOException {
+        return mapper.readValue(encoded, NOTE_LIST);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new org.openjdk.jmh.runner.Runner(new OptionsBuilder()
+                .include(SerializationFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+
+    private static List<NoteDto> createNotes(int count) {
+        LocalDateTime now = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<NoteDto> notes = new ArrayList<>();
+        for (long i = 1; i <= count; i++) {
+            NoteDto note = new NoteDto();
+            note.setId(i);
+            note.setTitle("Note " + i);
+            note.setContent("Meeting notes for item " + i + ": discuss roadmap, budget and hiring.");
+            note.setCreatedAt(now);
+            note.setUpdatedAt(now.plusMinutes(i));
+            note.setUserId(i % 10);
+            note.setVersion(i % 3);
+            notes.add(note);
+        }
+        return notes;
+    }
+}
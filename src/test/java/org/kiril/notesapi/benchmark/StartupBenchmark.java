@@ -0,0 +1,78 @@
+package org.kiril.notesapi.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from JVM launch until the application context has refreshed, for the executable jar as it is
+ * deployed today against the fast-startup layout (extracted jar, AOT code and the AppCDS archive).
+ * Each invocation starts a fresh JVM. Needs {@code ./mvnw -Pfast-startup package} first; see the
+ * README for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+    private static final Path TARGET = Path.of("target");
+    private static final Path CDS_DIRECTORY = TARGET.resolve("cds");
+
+    // Same as the CDS training run, so neither variant waits for a database
+    private static final List<String> OFFLINE = List.of(
+            "-Dspring.context.exit=onRefresh",
+            "-Dspring.flyway.enabled=false",
+            "-Dspring.jpa.hibernate.ddl-auto=none",
+            "-Dspring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access=false");
+
+    @Param({"jar", "aot-cds"})
+    private String variant;
+
+    private Path jar;
+
+    @Setup
+    public void findJar() throws IOException {
+        try (var files = Files.list(variant.equals("aot-cds") ? CDS_DIRECTORY : TARGET)) {
+            jar = files.filter(file -> file.getFileName().toString().endsWith(".jar"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Run ./mvnw -Pfast-startup package first"));
+        }
+    }
+
+    @Benchmark
+    public int start() throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        if (variant.equals("aot-cds")) {
+            command.add("-XX:SharedArchiveFile=" + CDS_DIRECTORY.resolve("application.jsa"));
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.addAll(OFFLINE);
+        command.add("-jar");
+        command.add(jar.toString());
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Application exited with " + exitCode + ": " + command);
+        }
+        return exitCode;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new org.openjdk.jmh.runner.Runner(new OptionsBuilder()
+                .include(StartupBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
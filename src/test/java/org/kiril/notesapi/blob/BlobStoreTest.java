@@ -0,0 +1,108 @@
+package org.kiril.notesapi.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.NoteRevision;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlobStoreTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void put_ShouldRoundTripContent() {
+        BlobStore blobStore = new BlobStore(directory);
+        byte[] content = "Meeting notes ".repeat(5_000).getBytes(StandardCharsets.UTF_8);
+
+        String hash = blobStore.put(content);
+
+        assertEquals(64, hash.length());
+        assertArrayEquals(content, blobStore.read(hash, content.length));
+    }
+
+    @Test
+    void put_SameContentTwice_ShouldStoreOneCompressedFile() throws Exception {
+        BlobStore blobStore = new BlobStore(directory);
+        byte[] content = "Meeting notes ".repeat(5_000).getBytes(StandardCharsets.UTF_8);
+
+        String first = blobStore.put(content);
+        String second = blobStore.put(content.clone());
+
+        assertEquals(first, second);
+        try (Stream<Path> files = Files.walk(directory)) {
+            List<Path> blobs = files.filter(Files::isRegularFile).toList();
+            assertEquals(1, blobs.size());
+            assertTrue(Files.size(blobs.get(0)) < content.length);
+        }
+    }
+
+    @Test
+    void collectGarbage_ShouldOnlyDeleteUnreferencedBlobs() {
+        BlobStore blobStore = new BlobStore(directory);
+        String kept = blobStore.put("kept".getBytes(StandardCharsets.UTF_8));
+        String orphan = blobStore.put("orphan".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(0, blobStore.collectGarbage(kept::equals, Duration.ofHours(1)));
+        assertEquals(1, blobStore.collectGarbage(kept::equals, Duration.ZERO.minusSeconds(1)));
+
+        assertEquals("kept", new String(blobStore.read(kept, 4), StandardCharsets.UTF_8));
+        assertThrows(IllegalStateException.class, () -> blobStore.read(orphan, 6));
+    }
+
+    @Test
+    void noteBodies_ShouldOnlyExternalizeBodiesAboveThreshold() {
+        NoteBodies noteBodies = new NoteBodies(new BlobStore(directory), new SegmentArchive(directory.resolve("archive")), 1024);
+        Note small = new Note();
+        Note large = new Note();
+        String largeContent = "x".repeat(2048);
+
+        noteBodies.write(small, "short");
+        noteBodies.write(large, largeContent);
+
+        assertEquals("short", small.getContent());
+        assertNull(small.getContentHash());
+        assertNull(large.getContent());
+        assertEquals(2048, large.getContentLength());
+        assertEquals(largeContent, noteBodies.read(large));
+    }
+
+    @Test
+    void noteBodies_LargeSnapshot_ShouldReferenceTheNoteBodyBlob() throws Exception {
+        NoteBodies noteBodies = new NoteBodies(new BlobStore(directory), new SegmentArchive(directory.resolve("archive")), 1024);
+        Note note = new Note();
+        NoteRevision snapshot = new NoteRevision();
+        String largeContent = "x".repeat(2048);
+
+        noteBodies.write(note, largeContent);
+        noteBodies.writeSnapshot(snapshot, largeContent);
+
+        assertNull(snapshot.getContent());
+        assertEquals(note.getContentHash(), snapshot.getContentHash());
+        assertEquals(largeContent, noteBodies.readSnapshot(snapshot));
+        try (Stream<Path> files = Files.walk(directory)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void noteBodies_WithoutBlobStore_ShouldKeepBodiesInline() {
+        NoteBodies noteBodies = new NoteBodies(null, new SegmentArchive(directory.resolve("archive")), 1024);
+        Note large = new Note();
+        String largeContent = "x".repeat(2048);
+
+        noteBodies.write(large, largeContent);
+
+        assertEquals(largeContent, large.getContent());
+        assertNull(large.getContentHash());
+        assertEquals(largeContent, noteBodies.read(large));
+    }
+}
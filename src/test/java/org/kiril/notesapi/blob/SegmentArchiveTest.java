@@ -0,0 +1,76 @@
+package org.kiril.notesapi.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiril.notesapi.model.Note;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentArchiveTest {
+    @TempDir
+    private Path directory;
+
+    @Test
+    void append_ShouldReadEachBodyBackFromItsLocation() {
+        SegmentArchive archive = new SegmentArchive(directory);
+        byte[] first = "Meeting notes ".repeat(1_000).getBytes(StandardCharsets.UTF_8);
+        byte[] second = "Shopping list: milk, eggs".getBytes(StandardCharsets.UTF_8);
+
+        SegmentArchive.Location firstLocation;
+        SegmentArchive.Location secondLocation;
+        try (SegmentArchive.Writer writer = archive.newSegment()) {
+            firstLocation = writer.append(first);
+            secondLocation = writer.append(second);
+            writer.sync();
+        }
+
+        assertEquals(firstLocation.segment(), secondLocation.segment());
+        assertEquals(firstLocation.length(), secondLocation.offset());
+        assertTrue(firstLocation.length() < first.length);
+        assertArrayEquals(second, archive.read(secondLocation, second.length));
+        assertArrayEquals(first, archive.read(firstLocation, first.length));
+    }
+
+    @Test
+    void collectGarbage_ShouldKeepReferencedSegments() {
+        SegmentArchive archive = new SegmentArchive(directory);
+        SegmentArchive.Location kept;
+        try (SegmentArchive.Writer writer = archive.newSegment()) {
+            kept = writer.append("kept".getBytes(StandardCharsets.UTF_8));
+        }
+        try (SegmentArchive.Writer writer = archive.newSegment()) {
+            writer.append("orphan".getBytes(StandardCharsets.UTF_8));
+        }
+
+        assertEquals(1, archive.collectGarbage(kept.segment()::equals, Duration.ZERO.minusSeconds(1)));
+        assertArrayEquals("kept".getBytes(StandardCharsets.UTF_8), archive.read(kept, 4));
+    }
+
+    @Test
+    void noteBodies_ShouldReadArchivedBodyAndPromoteItOnWrite() {
+        SegmentArchive archive = new SegmentArchive(directory);
+        NoteBodies noteBodies = new NoteBodies(new BlobStore(directory.resolve("blobs")), archive, 1024);
+        byte[] content = "Cold note".getBytes(StandardCharsets.UTF_8);
+        SegmentArchive.Location location;
+        try (SegmentArchive.Writer writer = archive.newSegment()) {
+            location = writer.append(content);
+        }
+        Note note = new Note();
+        note.setContentLength(content.length);
+        note.setArchiveSegment(location.segment());
+        note.setArchiveOffset(location.offset());
+        note.setArchiveLength(location.length());
+
+        assertEquals("Cold note", noteBodies.read(note));
+
+        noteBodies.write(note, "Warm again");
+
+        assertTrue(note.hasInlineContent());
+        assertNull(note.getArchiveOffset());
+        assertEquals("Warm again", note.getContent());
+    }
+}
@@ -0,0 +1,83 @@
+package org.kiril.notesapi.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class AfterCommitCacheWriterTest {
+    private ConcurrentMapCache target;
+    private Cache cache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        target = new ConcurrentMapCache("note");
+        cache = new BatchingCache(target, new AfterCommitCacheWriter(mock(ObjectProvider.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void put_OutsideTransaction_ShouldWriteImmediately() {
+        cache.put(1L, "note");
+
+        assertEquals("note", target.get(1L, String.class));
+    }
+
+    @Test
+    void writes_InsideTransaction_ShouldWaitForCommit() {
+        target.put(2L, "stale");
+        beginTransaction();
+
+        cache.put(1L, "note");
+        cache.evict(2L);
+
+        assertNull(target.get(1L));
+        assertNotNull(target.get(2L));
+        assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+        complete(true);
+
+        assertEquals("note", target.get(1L, String.class));
+        assertNull(target.get(2L));
+    }
+
+    @Test
+    void writes_InsideRolledBackTransaction_ShouldBeDiscarded() {
+        beginTransaction();
+
+        cache.put(1L, "note");
+        complete(false);
+
+        assertNull(target.get(1L));
+    }
+
+    private void beginTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    private void complete(boolean committed) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (committed) {
+                synchronization.afterCommit();
+            }
+            synchronization.afterCompletion(committed
+                    ? TransactionSynchronization.STATUS_COMMITTED : TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+    }
+}
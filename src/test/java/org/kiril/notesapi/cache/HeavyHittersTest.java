@@ -0,0 +1,56 @@
+package org.kiril.notesapi.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HeavyHittersTest {
+
+    @Test
+    void top_ShouldFindHeavyKeysAmongManyColdOnes() {
+        HeavyHitters heavyHitters = new HeavyHitters(1024, 4, 10);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100_000; i++) {
+            if (random.nextInt(10) < 3) {
+                heavyHitters.record("user:" + random.nextInt(5));
+            } else {
+                heavyHitters.record("user:" + (100 + random.nextInt(50_000)));
+            }
+        }
+
+        List<HeavyHitters.Count> top = heavyHitters.top();
+        assertEquals(10, top.size());
+        for (int i = 0; i < 5; i++) {
+            assertTrue(heavyHitters.isHot("user:" + i));
+            assertTrue(top.get(i).count() > 5_000);
+        }
+    }
+
+    @Test
+    void record_ShouldNeverUndercount() {
+        HeavyHitters heavyHitters = new HeavyHitters(16, 2, 5);
+
+        long estimate = 0;
+        for (int i = 0; i < 100; i++) {
+            heavyHitters.record("other:" + i);
+            estimate = heavyHitters.record(7L);
+        }
+
+        assertTrue(estimate >= 100);
+    }
+
+    @Test
+    void decay_ShouldLetColdKeysDropOut() {
+        HeavyHitters heavyHitters = new HeavyHitters(1024, 4, 1);
+        heavyHitters.record("note:1");
+
+        heavyHitters.decay();
+
+        assertFalse(heavyHitters.isHot("note:1"));
+        assertTrue(heavyHitters.top().isEmpty());
+    }
+}
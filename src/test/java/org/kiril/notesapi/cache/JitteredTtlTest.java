@@ -0,0 +1,44 @@
+package org.kiril.notesapi.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JitteredTtlTest {
+
+    @Test
+    void getTimeToLive_ShouldStayWithinJitterPlusStaleWindow() {
+        JitteredTtl ttl = new JitteredTtl(Duration.ofMinutes(10), 0.1, Duration.ofMinutes(1));
+
+        Set<Duration> seen = new HashSet<>();
+        for (int i = 0; i < 1000; i++) {
+            Duration value = ttl.getTimeToLive("key", "value");
+            assertTrue(value.compareTo(Duration.ofMinutes(10)) >= 0, "Too short: " + value);
+            assertTrue(value.compareTo(Duration.ofMinutes(12)) <= 0, "Too long: " + value);
+            seen.add(value);
+        }
+
+        assertTrue(seen.size() > 1, "Entries should not share one TTL");
+    }
+
+    @Test
+    void getTimeToLive_WithoutJitter_ShouldBeExact() {
+        JitteredTtl ttl = new JitteredTtl(Duration.ofMinutes(10), 0, Duration.ofMinutes(1));
+
+        assertEquals(Duration.ofMinutes(11), ttl.getTimeToLive("key", "value"));
+    }
+
+    @Test
+    void refreshThreshold_ShouldUsePerCacheTtl() {
+        CacheExpiryProperties properties = new CacheExpiryProperties();
+        properties.setTtl(Map.of("notes", Duration.ofMinutes(10)));
+
+        assertEquals(Duration.ofMinutes(3), properties.refreshThreshold("notes"));
+        assertEquals(Duration.ofMinutes(13), properties.refreshThreshold("note"));
+    }
+}
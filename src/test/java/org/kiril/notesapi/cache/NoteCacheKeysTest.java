@@ -0,0 +1,51 @@
+package org.kiril.notesapi.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.exception.ApiException;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteCacheKeysTest {
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void ownerNotes_ShouldMatchFormerSpelKeys() {
+        authenticate(7L, "ROLE_USER");
+        assertEquals("user:7", NoteCacheKeys.ownerNotes().generate(this, null, new Object[]{null}));
+        assertEquals("user:7", NoteCacheKeys.callerNotes().generate(this, null));
+
+        authenticate(1L, "ROLE_ADMIN");
+        assertEquals("admin:all", NoteCacheKeys.ownerNotes().generate(this, null, new Object[]{null}));
+        assertEquals("user:7", NoteCacheKeys.ownerNotes().generate(this, null, new Object[]{7L}));
+        assertEquals("admin:all:id,title",
+                NoteCacheKeys.ownerNoteFields().generate(this, null, null, NoteField.parse("title")));
+    }
+
+    @Test
+    void ownerNotes_ForOtherUserAsNonAdmin_ShouldBeRefused() {
+        authenticate(7L, "ROLE_USER");
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> NoteCacheKeys.ownerNotes().generate(this, null, new Object[]{8L}));
+
+        assertEquals(403, exception.getStatusCode().value());
+    }
+
+    private void authenticate(Long userId, String role) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId + "@example.com", "password",
+                List.of(new SimpleGrantedAuthority(role)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
@@ -0,0 +1,185 @@
+package org.kiril.notesapi.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.support.TransactionOperations;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Runs against a real Redis, since the write-back guard is a script; skipped when Docker is not available
+@Testcontainers(disabledWithoutDocker = true)
+class RefreshAheadTest {
+    private static final String KEY = "k";
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private LettuceConnectionFactory connectionFactory;
+    private ThreadPoolTaskExecutor executor;
+    private RedisCache cache;
+    private RefreshAhead refreshAhead;
+
+    @BeforeEach
+    void setUp() {
+        connectionFactory = new LettuceConnectionFactory(redis.getHost(), redis.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        // Every read falls into the refresh window
+        CacheExpiryProperties properties = new CacheExpiryProperties();
+        properties.setTtl(Map.of("note", Duration.ofMinutes(1)));
+        properties.setJitter(0);
+        properties.setStaleWindow(Duration.ZERO);
+        properties.setRefreshAhead(1.0);
+
+        RedisCacheManager cacheManager = RedisCacheManager.builder(connectionFactory)
+                .cacheDefaults(RedisCacheConfiguration.defaultCacheConfig()
+                        .entryTtl(new JitteredTtl(Duration.ofMinutes(1), 0, Duration.ZERO)))
+                .build();
+        cacheManager.initializeCaches();
+        cache = (RedisCache) cacheManager.getCache("note");
+        cache.clear();
+
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("redisConnectionFactory", connectionFactory);
+        refreshAhead = new RefreshAhead(beans.getBeanProvider(RedisConnectionFactory.class), properties, 1.0, executor,
+                TransactionOperations.withoutTransaction());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+        connectionFactory.destroy();
+    }
+
+    @Test
+    void refresh_ShouldReplaceUnchangedEntry() throws Exception {
+        cache.put(KEY, "old");
+
+        assertEquals("old", refreshAhead.get(cache, KEY, () -> "reloaded", false));
+        awaitReloads();
+
+        assertEquals("reloaded", cache.get(KEY).get());
+    }
+
+    @Test
+    void refresh_RacingEvict_ShouldNotWriteOldValueBack() throws Exception {
+        cache.put(KEY, "old");
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch evicted = new CountDownLatch(1);
+
+        assertEquals("old", refreshAhead.get(cache, KEY, () -> {
+            reading.countDown();
+            assertTrue(evicted.await(5, TimeUnit.SECONDS));
+            return "read before the write";
+        }, false));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        cache.evict(KEY);
+        evicted.countDown();
+        awaitReloads();
+
+        assertNull(cache.get(KEY));
+    }
+
+    @Test
+    void refresh_RacingPut_ShouldKeepNewerValue() throws Exception {
+        cache.put(KEY, "old");
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch written = new CountDownLatch(1);
+
+        refreshAhead.get(cache, KEY, () -> {
+            reading.countDown();
+            assertTrue(written.await(5, TimeUnit.SECONDS));
+            return "read before the write";
+        }, false);
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+        cache.put(KEY, "written");
+        written.countDown();
+        awaitReloads();
+
+        assertEquals("written", cache.get(KEY).get());
+    }
+
+    @Test
+    void get_ConcurrentMisses_ShouldLoadOnce() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        Callable<String> loader = () -> {
+            loads.incrementAndGet();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return "loaded";
+        };
+
+        ExecutorService callers = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> refreshAhead.get(cache, KEY, loader, false)));
+            }
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertEquals("loaded", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_WhenLoadFails_ShouldLetWaitingCallerLoadItself() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        ExecutorService callers = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> refused = callers.submit(() -> refreshAhead.get(cache, KEY, () -> {
+                loading.countDown();
+                Thread.sleep(200);
+                throw new IllegalStateException("Refused for this caller");
+            }, false));
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+            assertEquals("loaded", refreshAhead.get(cache, KEY, () -> "loaded", false));
+            ExecutionException failure = assertThrows(ExecutionException.class, () -> refused.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(Cache.ValueRetrievalException.class, failure.getCause());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    private void awaitReloads() throws InterruptedException {
+        executor.getThreadPoolExecutor().shutdown();
+        assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,166 @@
+package org.kiril.notesapi.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResilientCacheTest {
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+    private final MutableClock clock = new MutableClock();
+    private FlakyCache remote;
+    private CircuitBreaker circuitBreaker;
+    private ResilientCache cache;
+
+    @BeforeEach
+    void setUp() {
+        remote = new FlakyCache();
+        circuitBreaker = new CircuitBreaker(2, OPEN_DURATION, clock);
+        cache = new ResilientCache(remote, new BoundedLocalCache("note", 100, Duration.ofMinutes(1), clock), circuitBreaker, null);
+        circuitBreaker.onRecovery(cache::reconcile);
+    }
+
+    @Test
+    void failures_ShouldOpenCircuitAndServeFromLocalCache() {
+        remote.down = true;
+
+        cache.put(1L, "local");
+        cache.get(1L);
+        int callsWhenOpened = remote.calls;
+
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertEquals("local", cache.get(1L, String.class));
+        assertEquals(callsWhenOpened, remote.calls, "Open circuit should not call Redis");
+    }
+
+    @Test
+    void success_BetweenFailures_ShouldKeepCircuitClosed() {
+        remote.down = true;
+        cache.get(1L);
+        remote.down = false;
+        cache.get(1L);
+        remote.down = true;
+        cache.get(1L);
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        cache.get(1L);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    void hotKeys_ShouldBeServedFromPinnedCopyUntilWritten() {
+        HotKeyProperties properties = new HotKeyProperties();
+        properties.setTopKeys(1);
+        HotKeys hotKeys = new HotKeys(properties);
+        BoundedLocalCache pinned = new BoundedLocalCache("note", 10, Duration.ofSeconds(5), clock,
+                key -> hotKeys.isHot("note", key));
+        ResilientCache pinning = new ResilientCache(remote, new BoundedLocalCache("note", 100, Duration.ofMinutes(1), clock),
+                pinned, circuitBreaker, null, hotKeys);
+        remote.put(1L, "hot");
+
+        pinning.get(1L);
+        int calls = remote.calls;
+        assertEquals("hot", pinning.get(1L, String.class));
+        assertEquals(calls, remote.calls, "Pinned read should not call Redis");
+
+        pinning.put(1L, "updated");
+        assertEquals("updated", pinning.get(1L, String.class));
+    }
+
+    @Test
+    void recovery_ShouldEvictKeysWrittenDuringOutageAndClose() {
+        remote.put(1L, "before outage");
+        remote.down = true;
+        cache.evict(1L);
+        cache.get(2L);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+
+        remote.down = false;
+        clock.advance(OPEN_DURATION);
+
+        assertNull(cache.get(1L));
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertNull(remote.get(1L));
+    }
+
+    @Test
+    void localCache_ShouldDropLeastRecentlyUsedEntries() {
+        BoundedLocalCache local = new BoundedLocalCache("note", 2, Duration.ofMinutes(1), clock);
+        local.put(1L, "one");
+        local.put(2L, "two");
+        local.get(1L);
+        local.put(3L, "three");
+
+        assertNotNull(local.get(1L));
+        assertNull(local.get(2L));
+        clock.advance(Duration.ofMinutes(2));
+        assertNull(local.get(1L));
+    }
+
+    // A cache that fails like Redis does when it is unreachable
+    private static class FlakyCache extends ConcurrentMapCache {
+        private boolean down;
+        private int calls;
+
+        FlakyCache() {
+            super("note");
+        }
+
+        @Override
+        public Cache.ValueWrapper get(Object key) {
+            check();
+            return super.get(key);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            check();
+            super.put(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            check();
+            super.evict(key);
+        }
+
+        private void check() {
+            calls++;
+            if (down) {
+                throw new RedisConnectionFailureException("Redis is down");
+            }
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package org.kiril.notesapi.config;
+
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.User;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotesApiRuntimeHintsTest {
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void registerHints_ShouldCoverCachedDtosEntitiesAndJjwt() {
+        new NotesApiRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertTrue(RuntimeHintsPredicates.reflection().onMethod(NoteDto.class, "getTitle").test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(Note.class)
+                .withMemberCategory(MemberCategory.DECLARED_FIELDS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(User.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection().onType(TypeReference.of("io.jsonwebtoken.impl.DefaultJwtBuilder"))
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.resource().forResource("META-INF/services/io.jsonwebtoken.io.Serializer").test(hints));
+    }
+
+    @Test
+    void jjwtTypes_ShouldExistOnClasspath() {
+        for (String type : NotesApiRuntimeHints.JJWT_TYPES) {
+            assertDoesNotThrow(() -> Class.forName(type), type);
+        }
+    }
+}
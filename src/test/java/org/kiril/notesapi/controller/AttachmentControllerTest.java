@@ -0,0 +1,143 @@
+package org.kiril.notesapi.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiril.notesapi.dto.AttachmentDto;
+import org.kiril.notesapi.security.jwt.JwtTokenProvider;
+import org.kiril.notesapi.service.AttachmentService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(AttachmentController.class)
+class AttachmentControllerTest {
+    private static final String CONTENT = "0123456789abcdefghij";
+    private static final String SHA256 = "a".repeat(64);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private AttachmentService attachmentService;
+
+    @MockBean
+    private UserDetailsService userDetailsService;
+
+    @MockBean
+    private JwtTokenProvider jwtTokenProvider;
+
+    @TempDir
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Files.writeString(directory.resolve(SHA256), CONTENT, StandardCharsets.UTF_8);
+        when(attachmentService.getDownload(1L, 2L))
+                .thenReturn(new AttachmentService.Download(createAttachmentDto(), file));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void downloadAttachment_ShouldSendWholeFileWithEtag() throws Exception {
+        mockMvc.perform(get("/api/notes/1/attachments/2"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + SHA256 + "\""))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().string(CONTENT));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void downloadAttachment_WithRange_ShouldReturnPartialContent() throws Exception {
+        mockMvc.perform(get("/api/notes/1/attachments/2")
+                        .header(HttpHeaders.RANGE, "bytes=10-14"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 10-14/20"))
+                .andExpect(content().string("abcde"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void downloadAttachment_WithUnsatisfiableRange_ShouldReturn416() throws Exception {
+        mockMvc.perform(get("/api/notes/1/attachments/2")
+                        .header(HttpHeaders.RANGE, "bytes=50-60"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void downloadAttachment_WithMatchingEtag_ShouldReturn304() throws Exception {
+        mockMvc.perform(get("/api/notes/1/attachments/2")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + SHA256 + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void downloadAttachment_OfTruncatedFile_ShouldFailInsteadOfSpinning() throws Exception {
+        AttachmentDto recorded = createAttachmentDto();
+        recorded.setSize(CONTENT.length() + 10);
+        when(attachmentService.getDownload(1L, 3L))
+                .thenReturn(new AttachmentService.Download(recorded, directory.resolve(SHA256)));
+
+        mockMvc.perform(get("/api/notes/1/attachments/3"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void uploadAttachment_ShouldReturnCreated() throws Exception {
+        when(attachmentService.upload(eq(1L), eq("report.txt"), eq("text/plain"), any()))
+                .thenReturn(createAttachmentDto());
+
+        mockMvc.perform(post("/api/notes/1/attachments")
+                        .with(csrf())
+                        .param("filename", "report.txt")
+                        .contentType("text/plain")
+                        .content(CONTENT))
+                .andExpect(status().isCreated())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/notes/1/attachments/2"))
+                .andExpect(jsonPath("$.size").value(20));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void downloadAttachment_OfForeignNote_ShouldReturn403() throws Exception {
+        when(attachmentService.getDownload(5L, 2L))
+                .thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN));
+
+        mockMvc.perform(get("/api/notes/5/attachments/2"))
+                .andExpect(status().isForbidden());
+    }
+
+    private AttachmentDto createAttachmentDto() {
+        AttachmentDto dto = new AttachmentDto();
+        dto.setId(2L);
+        dto.setNoteId(1L);
+        dto.setFilename("report.txt");
+        dto.setContentType("text/plain");
+        dto.setSize(CONTENT.length());
+        dto.setSha256(SHA256);
+        return dto;
+    }
+}
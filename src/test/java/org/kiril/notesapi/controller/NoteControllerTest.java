@@ -1,30 +1,48 @@
 package org.kiril.notesapi.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.config.WebConfig;
 import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.exception.NoteErrors;
 import org.kiril.notesapi.security.jwt.JwtTokenProvider;
 import org.kiril.notesapi.service.NoteService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -65,6 +83,144 @@ class NoteControllerTest {
                 .andExpect(jsonPath("$[0].title").value("Note 1"));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotes_WithStream_ShouldWriteJsonArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<NoteDto> consumer = invocation.getArgument(1);
+            consumer.accept(createNoteDto(1L, "Note 1", 1L));
+            consumer.accept(createNoteDto(2L, "Note 2", 1L));
+            return null;
+        }).when(noteService).streamNotes(isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/notes")
+                        .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[1].title").value("Note 2"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotes_WithStreamForAnotherUser_AsUser_ShouldReturn403() throws Exception {
+        when(noteService.streamOwner(2L)).thenThrow(NoteErrors.NOTES_FORBIDDEN);
+
+        mockMvc.perform(get("/api/notes")
+                        .param("stream", "true")
+                        .param("userId", "2"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isForbidden());
+
+        verify(noteService, never()).streamNotes(any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotes_WithStreamFailingMidway_ShouldNotEndTheArray() throws Exception {
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("Shard went away");
+        doAnswer(invocation -> {
+            Consumer<NoteDto> consumer = invocation.getArgument(1);
+            consumer.accept(createNoteDto(1L, "Note 1", 1L));
+            throw failure;
+        }).when(noteService).streamNotes(isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/notes")
+                        .param("stream", "true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertSame(failure, result.getAsyncResult());
+        assertFalse(result.getResponse().getContentAsString().endsWith("]"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotes_WithCborAccept_ShouldReturnCbor() throws Exception {
+        NoteDto note = createNoteDto(1L, "Note 1", 1L);
+        note.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        when(noteService.getNotes(null)).thenReturn(List.of(note));
+
+        byte[] body = mockMvc.perform(get("/api/notes")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode notes = new CBORMapper().readTree(body);
+        assertEquals("Note 1", notes.get(0).get("title").asText());
+        // Dates are written as in JSON, not as timestamp arrays
+        assertEquals("2024-01-01T12:00:00", notes.get(0).get("createdAt").asText());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotes_WithSmileAccept_ShouldReturnSmile() throws Exception {
+        when(noteService.getNotes(null)).thenReturn(List.of(createNoteDto(1L, "Note 1", 1L)));
+
+        byte[] body = mockMvc.perform(get("/api/notes")
+                        .accept(WebConfig.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WebConfig.APPLICATION_SMILE_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode notes = new SmileMapper().readTree(body);
+        assertEquals(1L, notes.get(0).get("id").asLong());
+        assertEquals("Test content", notes.get(0).get("content").asText());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotes_WithFields_ShouldOmitUnselectedProperties() throws Exception {
+        NoteDto note = new NoteDto();
+        note.setId(1L);
+        note.setTitle("Note 1");
+        when(noteService.getNotes(null, NoteField.parse("title"))).thenReturn(List.of(note));
+
+        mockMvc.perform(get("/api/notes")
+                        .param("fields", "title"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Note 1"))
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNotesByIds_ShouldReturnRequestedNotes() throws Exception {
+        when(noteService.getNotesByIds(List.of(2L, 1L)))
+                .thenReturn(List.of(createNoteDto(2L, "Note 2", 1L), createNoteDto(1L, "Note 1", 1L)));
+
+        mockMvc.perform(get("/api/notes")
+                        .param("ids", "2,1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void lookupNotes_ShouldTakeIdsFromBody() throws Exception {
+        when(noteService.getNotesByIds(List.of(1L))).thenReturn(List.of(createNoteDto(1L, "Note 1", 1L)));
+
+        mockMvc.perform(post("/api/notes/lookup")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[1]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].title").value("Note 1"));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNote_WithUnknownField_ShouldReturn400() throws Exception {
+        mockMvc.perform(get("/api/notes/1")
+                        .param("fields", "title,password"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     void getNotes_AsAdminWithUserId_ShouldReturnSpecificUserNotes() throws Exception {
@@ -104,6 +260,21 @@ class NoteControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void getNote_OfOtherUser_ShouldReturnProblemDetails() throws Exception {
+        when(noteService.getNote(7L)).thenThrow(NoteErrors.NOTE_FORBIDDEN);
+
+        mockMvc.perform(get("/api/notes/7"))
+                .andExpect(status().isForbidden())
+                .andExpect(content().contentType(MediaType.APPLICATION_PROBLEM_JSON))
+                .andExpect(jsonPath("$.type").value("about:blank"))
+                .andExpect(jsonPath("$.title").value("Forbidden"))
+                .andExpect(jsonPath("$.status").value(403))
+                .andExpect(jsonPath("$.detail").value("You do not have permission to access this note."))
+                .andExpect(jsonPath("$.message").value("You do not have permission to access this note."));
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void createNote_WithValidData_ShouldReturnCreatedNote() throws Exception {
@@ -154,6 +325,21 @@ class NoteControllerTest {
                 .andExpect(jsonPath("$.title").value("Updated Title"));
     }
 
+    @Test
+    @WithMockUser(roles = "USER")
+    void updateNote_WithDuplicateTitle_ShouldReturn400() throws Exception {
+        NoteDto noteDto = createNoteDto(1L, "Taken Title", 1L);
+        when(noteService.updateNote(eq(1L), any(NoteDto.class))).thenThrow(
+                new DataIntegrityViolationException("duplicate key value violates unique constraint \"uk_notes_user_id_title\""));
+
+        mockMvc.perform(put("/api/notes/1")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(noteDto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("You already have a note with this title."));
+    }
+
     @Test
     @WithMockUser(roles = "USER")
     void deleteNote_WithValidId_ShouldReturn204() throws Exception {
@@ -0,0 +1,46 @@
+package org.kiril.notesapi.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.stream.IntStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingJsonTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void array_ShouldWriteEveryItem() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        StreamingJson.<Integer>array(objectMapper, consumer -> IntStream.range(0, 3).forEach(consumer::accept))
+                .writeTo(out);
+
+        assertEquals("[0,1,2]", out.toString(UTF_8));
+    }
+
+    @Test
+    void array_WhenProducerFailsMidway_ShouldLeaveArrayOpen() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseBody body = StreamingJson.<String>array(objectMapper, consumer -> {
+            // Well past the generator's buffer, so part of the listing has reached the client
+            for (int i = 0; i < 10_000; i++) {
+                consumer.accept("item " + i);
+            }
+            throw new IllegalStateException("Shard went away");
+        });
+
+        assertThrows(IllegalStateException.class, () -> body.writeTo(out));
+
+        String written = out.toString(UTF_8);
+        assertTrue(written.startsWith("[\"item 0\""));
+        assertFalse(written.endsWith("]"));
+        assertThrows(JsonProcessingException.class, () -> objectMapper.readTree(written));
+    }
+}
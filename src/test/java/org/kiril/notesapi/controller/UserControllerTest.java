@@ -1,8 +1,12 @@
 package org.kiril.notesapi.controller;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.kiril.notesapi.config.SecurityConfig;
+import org.kiril.notesapi.config.WebConfig;
 import org.kiril.notesapi.dto.UserDto;
 import org.kiril.notesapi.model.Role;
 import org.kiril.notesapi.security.jwt.JwtAuthenticationFilter;
@@ -22,11 +26,14 @@ import org.springframework.test.web.servlet.result.MockMvcResultHandlers;
 import java.util.Arrays;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(UserController.class)
+// non_null checks that the binary converters pick up spring.jackson.* like the JSON one
+@WebMvcTest(value = UserController.class, properties = "spring.jackson.default-property-inclusion=non_null")
 @Import({SecurityConfig.class, JwtAuthenticationFilter.class})
 class UserControllerTest {
     @Autowired
@@ -71,6 +78,38 @@ class UserControllerTest {
                 .andExpect(jsonPath("$[0].email").value("user1@example.com"));
     }
 
+    @Test
+    @WithMockUser(authorities = "ROLE_ADMIN")
+    void getAllUsers_WithCborAccept_ShouldReturnCbor() throws Exception {
+        when(userService.getAllUsers()).thenReturn(List.of(createUserDto(1L, "user1@example.com", Role.ROLE_USER)));
+
+        byte[] body = mockMvc.perform(get("/api/users")
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode users = new CBORMapper().readTree(body);
+        assertEquals("user1@example.com", users.get(0).get("email").asText());
+        assertEquals("ROLE_USER", users.get(0).get("role").asText());
+    }
+
+    @Test
+    @WithMockUser(authorities = "ROLE_ADMIN")
+    void getAllUsers_WithSmileAccept_ShouldApplyJacksonSettings() throws Exception {
+        when(userService.getAllUsers()).thenReturn(List.of(createUserDto(1L, "user1@example.com", null)));
+
+        byte[] body = mockMvc.perform(get("/api/users")
+                        .accept(WebConfig.APPLICATION_SMILE_VALUE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(WebConfig.APPLICATION_SMILE_VALUE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        JsonNode users = new SmileMapper().readTree(body);
+        assertEquals("user1@example.com", users.get(0).get("email").asText());
+        assertFalse(users.get(0).has("role"));
+    }
+
     private UserDto createUserDto(Long id, String email, Role role) {
         UserDto dto = new UserDto();
         dto.setId(id);
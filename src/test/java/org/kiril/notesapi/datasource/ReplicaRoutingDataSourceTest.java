@@ -0,0 +1,108 @@
+package org.kiril.notesapi.datasource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReplicaRoutingDataSourceTest {
+    private DataSource dataSource;
+    private DataSourceTransactionManager transactionManager;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void writeTransaction_ShouldUsePrimary() {
+        setUpRouting(List.of(h2("replica-a")));
+
+        assertEquals("primary", databaseName(false));
+    }
+
+    @Test
+    void readOnlyTransactions_ShouldRoundRobinOverReplicas() {
+        setUpRouting(List.of(h2("replica-a"), h2("replica-b")));
+
+        assertEquals("replica-a", databaseName(true));
+        assertEquals("replica-b", databaseName(true));
+        assertEquals("replica-a", databaseName(true));
+    }
+
+    @Test
+    void readOnlyTransaction_AfterUserWrite_ShouldStayOnPrimary() {
+        setUpRouting(List.of(h2("replica-a")));
+        authenticateAs(1L);
+
+        databaseName(false);
+
+        assertEquals("primary", databaseName(true));
+    }
+
+    @Test
+    void readOnlyTransaction_ShouldSkipUnhealthyReplica() {
+        setUpRouting(List.of(new DriverManagerDataSource("jdbc:unavailable:replica"), h2("replica-b")));
+
+        routingDataSource.checkReplicaHealth();
+
+        assertEquals("replica-b", databaseName(true));
+        assertEquals("replica-b", databaseName(true));
+    }
+
+    @Test
+    void readOnlyTransaction_WithoutHealthyReplicas_ShouldFallBackToPrimary() {
+        setUpRouting(List.of(new DriverManagerDataSource("jdbc:unavailable:replica")));
+
+        routingDataSource.checkReplicaHealth();
+
+        assertEquals("primary", databaseName(true));
+    }
+
+    private void setUpRouting(List<DataSource> replicas) {
+        routingDataSource = new ReplicaRoutingDataSource(h2("primary"), replicas,
+                ReplicaRoutingDataSource.Strategy.ROUND_ROBIN,
+                new ReadYourWritesTracker(Duration.ofMinutes(1)),
+                1);
+        routingDataSource.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    private String databaseName(boolean readOnly) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(readOnly);
+        return transactionTemplate.execute(status ->
+                new JdbcTemplate(dataSource).queryForObject("SELECT name FROM database_marker", String.class));
+    }
+
+    // Each H2 database records its own name so the test can see where a query was routed
+    private static DataSource h2(String name) {
+        DriverManagerDataSource h2 = new DriverManagerDataSource(
+                "jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(h2);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS database_marker (name VARCHAR(64))");
+        jdbcTemplate.execute("DELETE FROM database_marker");
+        jdbcTemplate.update("INSERT INTO database_marker (name) VALUES (?)", name);
+        return h2;
+    }
+
+    private void authenticateAs(Long userId) {
+        UserPrincipal principal = new UserPrincipal(userId, "user@example.com", "password", List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
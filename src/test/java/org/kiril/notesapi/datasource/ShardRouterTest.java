@@ -0,0 +1,77 @@
+package org.kiril.notesapi.datasource;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+    private static final int USERS = 10_000;
+
+    @Test
+    void shardFor_ShouldBeStableForSameUser() {
+        ShardRouter router = new ShardRouter(List.of("primary", "shard-1", "shard-2"));
+        ShardRouter sameRing = new ShardRouter(List.of("primary", "shard-1", "shard-2"));
+
+        for (long userId = 1; userId <= 100; userId++) {
+            assertEquals(router.shardFor(userId), sameRing.shardFor(userId));
+        }
+    }
+
+    @Test
+    void shardFor_ShouldSpreadUsersAcrossShards() {
+        ShardRouter router = new ShardRouter(List.of("primary", "shard-1", "shard-2"));
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (long userId = 1; userId <= USERS; userId++) {
+            counts.merge(router.shardFor(userId), 1, Integer::sum);
+        }
+
+        assertEquals(3, counts.size());
+        counts.values().forEach(count -> assertTrue(count > USERS / 5, "Unbalanced ring: " + counts));
+    }
+
+    @Test
+    void addingShard_ShouldOnlyMoveUsersToNewShard() {
+        ShardRouter before = new ShardRouter(List.of("primary", "shard-1"));
+        ShardRouter after = new ShardRouter(List.of("primary", "shard-1", "shard-2"));
+
+        int moved = 0;
+        for (long userId = 1; userId <= USERS; userId++) {
+            String oldShard = before.shardFor(userId);
+            String newShard = after.shardFor(userId);
+            if (!oldShard.equals(newShard)) {
+                assertEquals("shard-2", newShard);
+                moved++;
+            }
+        }
+
+        assertTrue(moved < USERS / 2, "Too many users moved: " + moved);
+    }
+
+    @Test
+    void assignment_ShouldOverrideRing() {
+        ShardRouter router = new ShardRouter(List.of("primary", "shard-1"));
+        String ringShard = router.ringShardFor(42L);
+        String otherShard = ringShard.equals("primary") ? "shard-1" : "primary";
+
+        router.assign(42L, otherShard);
+
+        assertEquals(otherShard, router.shardFor(42L));
+    }
+
+    @Test
+    void beginMove_Twice_ShouldFail() {
+        ShardRouter router = new ShardRouter(List.of("primary"));
+
+        router.beginMove(1L);
+
+        assertTrue(router.isMoving(1L));
+        assertThrows(IllegalStateException.class, () -> router.beginMove(1L));
+        router.endMove(1L);
+        assertFalse(router.isMoving(1L));
+    }
+}
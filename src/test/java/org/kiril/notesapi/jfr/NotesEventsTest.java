@@ -0,0 +1,66 @@
+package org.kiril.notesapi.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiril.notesapi.cache.BoundedLocalCache;
+import org.kiril.notesapi.cache.CircuitBreaker;
+import org.kiril.notesapi.cache.ResilientCache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NotesEventsTest {
+
+    @Test
+    void cacheReads_ShouldRecordOutcomePerCache(@TempDir Path directory) throws Exception {
+        Clock clock = Clock.systemUTC();
+        ResilientCache cache = new ResilientCache(new ConcurrentMapCache("note"),
+                new BoundedLocalCache("note", 10, Duration.ofMinutes(1), clock),
+                new CircuitBreaker(2, Duration.ofSeconds(10), clock), null);
+
+        List<RecordedEvent> events = record(directory, "org.kiril.notesapi.CacheRead", () -> {
+            cache.get(1L);
+            cache.get(1L, () -> "loaded");
+            cache.get(1L, () -> "not loaded");
+        });
+
+        assertEquals(List.of("miss", "load", "hit"), events.stream().map(event -> event.getString("outcome")).toList());
+        events.forEach(event -> assertEquals("note", event.getString("cacheName")));
+    }
+
+    @Test
+    void passwordEncoder_ShouldRecordHashing(@TempDir Path directory) throws Exception {
+        RecordingPasswordEncoder encoder = new RecordingPasswordEncoder(new BCryptPasswordEncoder(4));
+
+        List<RecordedEvent> events = record(directory, "org.kiril.notesapi.PasswordHash",
+                () -> assertTrue(encoder.matches("secret", encoder.encode("secret"))));
+
+        assertEquals(List.of("encode", "match"), events.stream().map(event -> event.getString("operation")).toList());
+    }
+
+    // Records the one event type with its threshold lifted, so even fast calls show up
+    private static List<RecordedEvent> record(Path directory, String eventName, Runnable action) throws Exception {
+        Path file = directory.resolve("events.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(eventName).withThreshold(Duration.ZERO);
+            recording.start();
+            action.run();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = new ArrayList<>(RecordingFile.readAllEvents(file));
+        events.sort(Comparator.comparing(RecordedEvent::getStartTime));
+        return events;
+    }
+}
@@ -0,0 +1,73 @@
+package org.kiril.notesapi.profiling;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.cache.HotKeysEndpoint;
+import org.kiril.notesapi.controller.NoteController;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class RequestProfilingFilterTest {
+    private static final int GARBAGE = 256 * 1024;
+
+    private MeterRegistry meterRegistry;
+    private RequestProfilingProperties properties;
+    private RequestProfileEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new RequestProfilingProperties();
+        endpoint = new RequestProfileEndpoint(meterRegistry, properties);
+    }
+
+    @Test
+    void filter_ShouldRecordAllocationPerHandlerMethod() throws Exception {
+        RequestProfilingFilter filter = new RequestProfilingFilter(meterRegistry, properties);
+        HandlerMethod getNote = new HandlerMethod(mock(NoteController.class),
+                NoteController.class.getMethod("getNote", Long.class));
+
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), allocating(getNote));
+        filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), allocating(getNote));
+
+        RequestProfileEndpoint.HandlerProfile profile =
+                endpoint.requestProfile().handlers().get("NoteController.getNote(Long)");
+        assertNotNull(profile);
+        assertEquals(2, profile.requests());
+        assertTrue(profile.allocatedBytes().mean() >= GARBAGE, "mean " + profile.allocatedBytes().mean());
+        assertTrue(profile.allocatedBytes().percentiles().containsKey("p99"));
+    }
+
+    @Test
+    void filter_ShouldSkipOtherHandlersAndUnsampledRequests() throws Exception {
+        HandlerMethod hotKeys = new HandlerMethod(mock(HotKeysEndpoint.class),
+                HotKeysEndpoint.class.getMethod("hotKeys"));
+        HandlerMethod getNote = new HandlerMethod(mock(NoteController.class),
+                NoteController.class.getMethod("getNote", Long.class));
+
+        new RequestProfilingFilter(meterRegistry, properties)
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), allocating(hotKeys));
+        properties.setSampleRate(0.0);
+        new RequestProfilingFilter(meterRegistry, properties)
+                .doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), allocating(getNote));
+
+        assertTrue(endpoint.requestProfile().handlers().isEmpty());
+    }
+
+    // Stands in for the dispatcher: resolves the handler and allocates while handling the request
+    private static FilterChain allocating(HandlerMethod handler) {
+        return (request, response) -> {
+            request.setAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE, handler);
+            byte[] body = new byte[GARBAGE];
+            response.getOutputStream().write(body, 0, 1);
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package org.kiril.notesapi.readmodel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kiril.notesapi.dto.NoteDto;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NoteReadModelTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0);
+
+    @Test
+    void upsert_ShouldIndexNotesByIdAndOwner() {
+        NoteReadModel readModel = new NoteReadModel();
+
+        readModel.upsert(view(2L, 7L, "Second", 0L));
+        readModel.upsert(view(1L, 7L, "First", 0L));
+        readModel.upsert(view(3L, 8L, "Other", 0L));
+
+        assertEquals("Second", readModel.getNote(2L).getTitle());
+        assertEquals(List.of(1L, 2L), readModel.getNotes(7L).stream().map(NoteDto::getId).toList());
+        assertEquals(3, readModel.getAllNotes().size());
+        assertTrue(readModel.getNotes(9L).isEmpty());
+    }
+
+    @Test
+    void upsert_ShouldKeepNewerVersion() {
+        NoteReadModel readModel = new NoteReadModel();
+
+        readModel.upsert(view(1L, 7L, "Newer", 2L));
+        readModel.upsert(view(1L, 7L, "Older", 1L));
+
+        assertEquals("Newer", readModel.getNote(1L).getTitle());
+        assertEquals("Newer", readModel.getNotes(7L).get(0).getTitle());
+    }
+
+    @Test
+    void remove_ShouldDropNoteFromBothIndexes() {
+        NoteReadModel readModel = new NoteReadModel();
+        readModel.upsert(view(1L, 7L, "First", 0L));
+        readModel.upsert(view(2L, 7L, "Second", 0L));
+
+        readModel.remove(1L);
+        readModel.remove(42L);
+
+        assertNull(readModel.getNote(1L));
+        assertEquals(List.of(2L), readModel.getNotes(7L).stream().map(NoteDto::getId).toList());
+        assertEquals(1, readModel.size());
+    }
+
+    @Test
+    void upsert_BeyondBodyBudget_ShouldKeepMetadataAndSendReadsToDatabase() {
+        // Room for the bodies of two notes, at two bytes per char
+        long bodySize = 2L * "Content of First".length();
+        NoteReadModel readModel = new NoteReadModel(2 * bodySize);
+        readModel.upsert(view(1L, 7L, "First", 0L));
+        readModel.upsert(view(2L, 7L, "Secon", 0L));
+        readModel.upsert(view(3L, 8L, "Third", 0L));
+
+        assertEquals(3, readModel.size());
+        assertEquals(2 * bodySize, readModel.bodyBytes());
+        assertNull(readModel.getNote(3L));
+        assertNull(readModel.getNotes(8L));
+        assertNull(readModel.getAllNotes());
+        assertEquals(2, readModel.getNotes(7L).size());
+
+        // Freed room is used by the next change
+        readModel.remove(1L);
+        readModel.upsert(view(3L, 8L, "Third", 1L));
+
+        assertEquals("Content of Third", readModel.getNote(3L).getContent());
+        assertEquals(2 * bodySize, readModel.bodyBytes());
+    }
+
+    @Test
+    void cursor_ShouldWaitForGapBeforeMovingPastIt() {
+        ShardCursor cursor = new ShardCursor(10L);
+
+        cursor.applied(11L);
+        cursor.applied(13L);
+        cursor.advance(0L, 100L);
+
+        assertEquals(11L, cursor.position());
+        assertTrue(cursor.isApplied(13L));
+        assertFalse(cursor.isApplied(12L));
+
+        cursor.advance(50L, 100L);
+        assertEquals(11L, cursor.position());
+
+        cursor.advance(100L, 100L);
+        assertEquals(13L, cursor.position());
+    }
+
+    @Test
+    void snapshot_ShouldRoundTrip(@TempDir Path directory) {
+        ReadModelSnapshots snapshots = new ReadModelSnapshots(directory);
+        List<NoteView> notes = List.of(view(1L, 7L, "First", 3L),
+                new NoteView(2L, 8L, "Empty", null, NOW, null, 0L),
+                view(3L, 8L, "Large", 1L).withoutBody());
+        Instant takenAt = Instant.ofEpochMilli(1_700_000_000_000L);
+
+        snapshots.write(new ReadModelSnapshots.Snapshot(takenAt, Map.of("primary", 42L), notes));
+        ReadModelSnapshots.Snapshot read = snapshots.read().orElseThrow();
+
+        assertEquals(takenAt, read.takenAt());
+        assertEquals(Map.of("primary", 42L), read.positions());
+        assertEquals(notes, read.notes());
+    }
+
+    @Test
+    void snapshot_ShouldIgnoreUnreadableFile(@TempDir Path directory) throws Exception {
+        Files.writeString(directory.resolve("notes.snapshot"), "not a snapshot");
+
+        assertTrue(new ReadModelSnapshots(directory).read().isEmpty());
+        assertTrue(new ReadModelSnapshots(directory.resolve("missing")).read().isEmpty());
+    }
+
+    private static NoteView view(long id, long userId, String title, long version) {
+        return new NoteView(id, userId, title, "Content of " + title, NOW, NOW, version);
+    }
+}
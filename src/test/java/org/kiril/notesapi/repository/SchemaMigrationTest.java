@@ -0,0 +1,120 @@
+package org.kiril.notesapi.repository;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.config.BlobStoreConfig;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Runs the Flyway scripts on Postgres instead of letting Hibernate create an H2 schema, so the
+// context only starts if ddl-auto=validate accepts what the migrations built
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(BlobStoreConfig.class)
+class SchemaMigrationTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void primaryMigrations_ShouldAllApply() {
+        Integer failed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM flyway_schema_history WHERE NOT success", Integer.class);
+        Integer latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(CAST(version AS INT)) FROM flyway_schema_history", Integer.class);
+
+        assertEquals(0, failed);
+        assertEquals(12, latest);
+    }
+
+    @Test
+    void shardMigrations_ShouldMatchPrimaryColumns() {
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("shard")
+                .locations("classpath:db/shard")
+                .placeholders(Map.of("idStart", "1000000"))
+                .load()
+                .migrate();
+
+        // Every table a shard has must look the same as on the primary, or the shared entities break
+        String columns = """
+                SELECT table_name, column_name, data_type, character_maximum_length, is_nullable
+                FROM information_schema.columns
+                WHERE table_schema = ? AND table_name <> 'flyway_schema_history'
+                  AND table_name IN (SELECT table_name FROM information_schema.tables WHERE table_schema = 'shard')
+                ORDER BY table_name, column_name
+                """;
+        List<Map<String, Object>> shard = jdbcTemplate.queryForList(columns, "shard");
+        List<Map<String, Object>> primary = jdbcTemplate.queryForList(columns, "public");
+
+        assertEquals(primary, shard);
+    }
+
+    @Test
+    void uniqueTitleMigration_ShouldRenameDuplicatesWithinLengthAndWithoutCollisions() {
+        Flyway before = Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("v2_check")
+                .target("1")
+                .load();
+        before.migrate();
+
+        Long userId = jdbcTemplate.queryForObject(
+                "INSERT INTO v2_check.users (email, password, role) VALUES ('a@example.com', 'x', 'ROLE_USER') RETURNING id",
+                Long.class);
+        String longTitle = "t".repeat(255);
+        insertNote(101, "Groceries", userId);
+        insertNote(102, "Groceries", userId);
+        insertNote(103, "Groceries (102)", userId);
+        insertNote(104, longTitle, userId);
+        insertNote(105, longTitle, userId);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .schemas("v2_check")
+                .load()
+                .migrate();
+
+        assertEquals("Groceries", titleOf(101));
+        assertEquals("Groceries (102-1)", titleOf(102));
+        assertEquals("Groceries (102)", titleOf(103));
+        assertEquals(longTitle, titleOf(104));
+        assertEquals("t".repeat(249) + " (105)", titleOf(105));
+    }
+
+    private void insertNote(long id, String title, Long userId) {
+        jdbcTemplate.update("INSERT INTO v2_check.notes (id, title, user_id) VALUES (?, ?, ?)", id, title, userId);
+    }
+
+    private String titleOf(long id) {
+        return jdbcTemplate.queryForObject("SELECT title FROM v2_check.notes WHERE id = ?", String.class, id);
+    }
+}
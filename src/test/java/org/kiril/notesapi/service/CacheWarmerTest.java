@@ -0,0 +1,71 @@
+package org.kiril.notesapi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kiril.notesapi.repository.NoteRepository;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheWarmerTest {
+    @Mock
+    private NoteService noteService;
+
+    @Mock
+    private NoteRepository noteRepository;
+
+    private CacheWarmupProperties properties;
+    private CacheWarmer cacheWarmer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CacheWarmupProperties();
+        properties.setParallelism(2);
+        cacheWarmer = new CacheWarmer(noteService, noteRepository, NoteShards.unsharded(), properties);
+    }
+
+    @Test
+    void run_ShouldPreloadRecentlyActiveUsers() throws InterruptedException {
+        when(noteRepository.findRecentlyActiveUserIds(any(Pageable.class))).thenReturn(List.of(3L, 1L, 2L));
+
+        cacheWarmer.run(null);
+
+        verify(noteService).preloadNotes(1L);
+        verify(noteService).preloadNotes(2L);
+        verify(noteService).preloadNotes(3L);
+    }
+
+    @Test
+    void run_ShouldStopAtTimeBudget() {
+        properties.setTimeBudget(Duration.ofMillis(100));
+        when(noteRepository.findRecentlyActiveUserIds(any(Pageable.class))).thenReturn(List.of(1L, 2L, 3L, 4L));
+        doAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return List.of();
+        }).when(noteService).preloadNotes(anyLong());
+
+        assertTimeout(Duration.ofSeconds(2), () -> cacheWarmer.run(null));
+    }
+
+    @Test
+    void run_WhenActiveUsersCannotBeRead_ShouldNotFailStartup() {
+        doThrow(new IllegalStateException("database down")).when(noteRepository).findRecentlyActiveUserIds(any(Pageable.class));
+
+        assertDoesNotThrow(() -> cacheWarmer.run(null));
+        verify(noteService, never()).preloadNotes(anyLong());
+    }
+}
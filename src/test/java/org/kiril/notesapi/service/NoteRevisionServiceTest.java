@@ -0,0 +1,118 @@
+package org.kiril.notesapi.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.cache.NoteFieldsCache;
+import org.kiril.notesapi.config.BlobStoreConfig;
+import org.kiril.notesapi.config.ReadModelConfig;
+import org.kiril.notesapi.config.RevisionConfig;
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteRevisionDto;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.Role;
+import org.kiril.notesapi.model.User;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "notes.revisions.snapshot-interval=3")
+@ActiveProfiles("test")
+@Import({NoteService.class, NoteShards.class, NoteRevisionRecorder.class, NoteRevisionService.class,
+        BlobStoreConfig.class, RevisionConfig.class, ReadModelConfig.class})
+class NoteRevisionServiceTest {
+    private static final int UPDATES = 8;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRevisionService noteRevisionService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private NoteFieldsCache noteFieldsCache;
+
+    private Note note;
+    private final List<String> contents = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setEmail("revisions@example.com");
+        user.setPassword("password");
+        user.setRole(Role.ROLE_USER);
+        entityManager.persist(user);
+
+        note = new Note();
+        note.setTitle("Title 0");
+        note.setContent(content(0));
+        note.setUser(user);
+        entityManager.persistAndFlush(note);
+        contents.add(content(0));
+
+        UserPrincipal principal = UserPrincipal.create(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+
+        for (int i = 1; i <= UPDATES; i++) {
+            NoteDto update = new NoteDto();
+            update.setTitle("Title " + i);
+            update.setContent(content(i));
+            noteService.updateNote(note.getId(), update);
+            contents.add(content(i));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getRevision_ShouldRebuildEveryEarlierState() {
+        for (int revision = 0; revision <= UPDATES; revision++) {
+            NoteRevisionDto result = noteRevisionService.getRevision(note.getId(), revision);
+
+            assertEquals(contents.get(revision), result.getContent(), "revision " + revision);
+            assertEquals("Title " + revision, result.getTitle());
+        }
+    }
+
+    @Test
+    void getRevisions_ShouldPageNewestFirstWithoutContent() {
+        Page<NoteRevisionDto> page = noteRevisionService.getRevisions(note.getId(), PageRequest.of(0, 5));
+
+        assertEquals(UPDATES, page.getTotalElements());
+        assertEquals(5, page.getContent().size());
+        assertEquals(UPDATES - 1, page.getContent().get(0).getRevision());
+        assertNull(page.getContent().get(0).getContent());
+    }
+
+    @Test
+    void getRevision_AfterHead_ShouldThrowNotFound() {
+        assertThrows(ResponseStatusException.class, () ->
+                noteRevisionService.getRevision(note.getId(), UPDATES + 1));
+    }
+
+    // Each version edits a different part of a shared body
+    private static String content(int version) {
+        return "Agenda: roadmap, budget, hiring. Owner " + version + ". Follow-up in " + (version * 7) + " days.";
+    }
+}
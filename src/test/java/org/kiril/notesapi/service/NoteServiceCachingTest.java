@@ -0,0 +1,114 @@
+package org.kiril.notesapi.service;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.cache.NoteBatchCache;
+import org.kiril.notesapi.cache.NoteCacheKeys;
+import org.kiril.notesapi.cache.NoteFieldsCache;
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.exception.ApiException;
+import org.kiril.notesapi.readmodel.NoteJournal;
+import org.kiril.notesapi.readmodel.NoteReadModel;
+import org.kiril.notesapi.repository.NoteRepository;
+import org.kiril.notesapi.repository.UserRepository;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.kiril.notesapi.config.CacheConfig.NOTE_FIELDS_CACHE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Goes through the caching proxy, so the access checks are exercised on cache hits as well
+@SpringJUnitConfig
+class NoteServiceCachingTest {
+    private static final Long OWNER_ID = 1L;
+    private static final Long OTHER_USER_ID = 2L;
+
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private NoteRepository noteRepository;
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getNote_WithFieldsCachedByOwner_ShouldRefuseOtherUser() {
+        Set<NoteField> fields = NoteField.parse("title");
+        when(noteRepository.findProjectedById(eq(10L), any())).thenAnswer(invocation -> Optional.of(projected(10L)));
+
+        authenticate(OWNER_ID, "ROLE_USER");
+        assertEquals("Title", noteService.getNote(10L, fields).getTitle());
+        assertEquals("Title", noteService.getNote(10L, fields).getTitle());
+        verify(noteRepository, times(1)).findProjectedById(eq(10L), any());
+
+        authenticate(OTHER_USER_ID, "ROLE_USER");
+        ApiException exception = assertThrows(ApiException.class, () -> noteService.getNote(10L, fields));
+
+        assertEquals(403, exception.getStatusCode().value());
+    }
+
+    private static NoteDto projected(Long id) {
+        NoteDto note = new NoteDto();
+        note.setId(id);
+        note.setTitle("Title");
+        note.setUserId(OWNER_ID);
+        return note;
+    }
+
+    private static void authenticate(Long userId, String role) {
+        UserPrincipal principal = new UserPrincipal(userId, "user" + userId + "@example.com", "password",
+                List.of(new SimpleGrantedAuthority(role)));
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    @Configuration
+    @EnableCaching
+    static class Config {
+        @Bean
+        CacheManager cacheManager() {
+            return new ConcurrentMapCacheManager(NOTE_FIELDS_CACHE);
+        }
+
+        @Bean(NoteCacheKeys.NOTE_FIELDS)
+        KeyGenerator noteFieldsKey() {
+            return NoteCacheKeys.noteFields();
+        }
+
+        @Bean
+        NoteRepository noteRepository() {
+            return mock(NoteRepository.class);
+        }
+
+        @Bean
+        NoteService noteService(NoteRepository noteRepository) {
+            return new NoteService(noteRepository, mock(UserRepository.class), NoteShards.unsharded(),
+                    mock(NoteFieldsCache.class), mock(NoteBatchCache.class), mock(NoteBodies.class),
+                    mock(NoteRevisionRecorder.class), mock(NoteJournal.class), mock(NoteReadModel.class),
+                    mock(EntityManager.class));
+        }
+    }
+}
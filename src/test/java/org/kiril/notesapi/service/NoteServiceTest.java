@@ -3,28 +3,40 @@ package org.kiril.notesapi.service;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.kiril.notesapi.blob.NoteBodies;
+import org.kiril.notesapi.cache.NoteBatchCache;
+import org.kiril.notesapi.cache.NoteFieldsCache;
+import org.kiril.notesapi.dto.NoteContentPatchDto;
 import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.exception.ApiException;
 import org.kiril.notesapi.model.Note;
 import org.kiril.notesapi.model.User;
 import org.kiril.notesapi.model.Role;
+import org.kiril.notesapi.readmodel.NoteJournal;
+import org.kiril.notesapi.readmodel.NoteReadModel;
 import org.kiril.notesapi.repository.NoteRepository;
 import org.kiril.notesapi.repository.UserRepository;
 import org.kiril.notesapi.security.UserPrincipal;
+import org.kiril.notesapi.text.TextEdit;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,6 +48,27 @@ class NoteServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private NoteFieldsCache noteFieldsCache;
+
+    @Mock
+    private NoteBatchCache noteBatchCache;
+
+    @Mock
+    private NoteBodies noteBodies;
+
+    @Mock
+    private NoteRevisionRecorder noteRevisionRecorder;
+
+    @Mock
+    private NoteJournal noteJournal;
+
+    @Mock
+    private NoteReadModel readModel;
+
+    @Spy
+    private NoteShards noteShards = NoteShards.unsharded();
+
     @InjectMocks
     private NoteService noteService;
 
@@ -111,6 +144,15 @@ class NoteServiceTest {
     }
 
 
+    @Test
+    void streamOwner_AsUser_ShouldResolveCallerAndRefuseOtherUsers() {
+        assertEquals(1L, noteService.streamOwner(null));
+        assertEquals(1L, noteService.streamOwner(1L));
+
+        ApiException refused = assertThrows(ApiException.class, () -> noteService.streamOwner(2L));
+        assertEquals(HttpStatus.FORBIDDEN, refused.getStatusCode());
+    }
+
     @Test
     void getNote_AsOwner_ShouldReturnNote() {
         Note note = createNote(1L, "Test Note", user);
@@ -130,19 +172,63 @@ class NoteServiceTest {
 
         when(noteRepository.findById(1L)).thenReturn(Optional.of(note));
 
-        assertThrows(ResponseStatusException.class, () ->
+        assertThrows(ApiException.class, () ->
                 noteService.getNote(1L)
         );
     }
 
+    @Test
+    void getNote_WithFieldsAsNonOwner_ShouldThrowAccessDeniedException() {
+        NoteDto projected = new NoteDto();
+        projected.setId(1L);
+        projected.setUserId(2L);
+        when(noteRepository.findProjectedById(any(), any())).thenReturn(Optional.of(projected));
+
+        assertThrows(ApiException.class, () ->
+                noteService.getNote(1L, NoteField.parse("title"))
+        );
+    }
+
+    @Test
+    void getNotesByIds_ShouldCombineCacheHitsAndLoadedNotesInRequestOrder() {
+        NoteDto cached = new NoteDto();
+        cached.setId(3L);
+        cached.setUserId(1L);
+        NoteDto foreignCached = new NoteDto();
+        foreignCached.setId(4L);
+        foreignCached.setUserId(2L);
+        User otherUser = new User();
+        otherUser.setId(2L);
+
+        when(noteBatchCache.getAll(any())).thenReturn(Map.of(3L, cached, 4L, foreignCached));
+        when(noteRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(createNote(1L, "Mine", user), createNote(2L, "Theirs", otherUser)));
+
+        List<NoteDto> result = noteService.getNotesByIds(List.of(3L, 1L, 2L, 4L, 3L));
+
+        assertEquals(List.of(3L, 1L), result.stream().map(NoteDto::getId).toList());
+        verify(noteBatchCache).putAll(List.of(result.get(1)));
+    }
+
+    @Test
+    void getNotesByIds_WithTooManyIds_ShouldThrowBadRequest() {
+        List<Long> ids = java.util.stream.LongStream.rangeClosed(1, NoteService.MAX_NOTE_IDS + 1).boxed().toList();
+
+        ApiException exception = assertThrows(ApiException.class,
+                () -> noteService.getNotesByIds(ids));
+
+        assertEquals(400, exception.getStatusCode().value());
+        verify(noteRepository, never()).findAllById(any());
+    }
+
     @Test
     void createNote_WithValidData_ShouldReturnCreatedNote() {
         NoteDto noteDto = new NoteDto();
         noteDto.setTitle("New Note");
         noteDto.setContent("Content");
 
-        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
-        when(noteRepository.save(any(Note.class))).thenAnswer(i -> {
+        when(userRepository.getReferenceById(1L)).thenReturn(user);
+        when(noteRepository.saveAndFlush(any(Note.class))).thenAnswer(i -> {
             Note note = (Note) i.getArguments()[0];
             note.setId(1L);
             return note;
@@ -162,9 +248,8 @@ class NoteServiceTest {
         updateDto.setTitle("Updated Title");
         updateDto.setContent("Updated Content");
 
-        when(userRepository.findById(user.getId())).thenReturn(Optional.of(user)); // Mock to return the user
         when(noteRepository.findById(1L)).thenReturn(Optional.of(existingNote));
-        when(noteRepository.save(any(Note.class))).thenReturn(existingNote);
+        when(noteRepository.saveAndFlush(any(Note.class))).thenReturn(existingNote);
 
         NoteDto result = noteService.updateNote(1L, updateDto);
 
@@ -181,6 +266,41 @@ class NoteServiceTest {
         verify(noteRepository).delete(note);
     }
 
+    @Test
+    void patchNoteContent_AtCurrentVersion_ShouldApplyEdits() {
+        Note note = createNote(1L, "Test Note", user);
+        note.setVersion(3L);
+        when(noteRepository.findById(1L)).thenReturn(Optional.of(note));
+        when(noteBodies.read(note)).thenReturn("Test content");
+        when(noteRepository.saveAndFlush(note)).thenReturn(note);
+
+        NoteContentPatchDto patch = new NoteContentPatchDto();
+        patch.setBaseVersion(3L);
+        patch.setEdits(List.of(new TextEdit(5, 7, "body")));
+
+        NoteDto result = noteService.patchNoteContent(1L, patch);
+
+        verify(noteBodies).write(note, "Test body");
+        assertNull(result.getContent());
+    }
+
+    @Test
+    void patchNoteContent_AtStaleVersion_ShouldThrowConflict() {
+        Note note = createNote(1L, "Test Note", user);
+        note.setVersion(4L);
+        when(noteRepository.findById(1L)).thenReturn(Optional.of(note));
+
+        NoteContentPatchDto patch = new NoteContentPatchDto();
+        patch.setBaseVersion(3L);
+        patch.setEdits(List.of(new TextEdit(0, 4, "Best")));
+
+        ApiException exception = assertThrows(ApiException.class, () ->
+                noteService.patchNoteContent(1L, patch)
+        );
+        assertEquals(409, exception.getStatusCode().value());
+        verify(noteRepository, never()).saveAndFlush(any());
+    }
+
     private Note createNote(Long id, String title, User user) {
         Note note = new Note();
         note.setId(id);
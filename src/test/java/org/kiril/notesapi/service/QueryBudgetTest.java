@@ -0,0 +1,225 @@
+package org.kiril.notesapi.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.cache.NoteBatchCache;
+import org.kiril.notesapi.cache.NoteFieldsCache;
+import org.kiril.notesapi.config.BlobStoreConfig;
+import org.kiril.notesapi.config.ReadModelConfig;
+import org.kiril.notesapi.config.RevisionConfig;
+import org.kiril.notesapi.dto.NoteDto;
+import org.kiril.notesapi.dto.NoteField;
+import org.kiril.notesapi.model.Note;
+import org.kiril.notesapi.model.Role;
+import org.kiril.notesapi.model.User;
+import org.kiril.notesapi.security.UserPrincipal;
+import org.kiril.notesapi.support.QueryCounter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Pins the number of SQL statements each service operation behind an endpoint may run
+@DataJpaTest
+@ActiveProfiles("test")
+@Import({NoteService.class, NoteShards.class, UserService.class, NoteRevisionRecorder.class,
+        BlobStoreConfig.class, RevisionConfig.class, ReadModelConfig.class})
+class QueryBudgetTest {
+    @Autowired
+    private NoteService noteService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private NoteFieldsCache noteFieldsCache;
+
+    @MockBean
+    private NoteBatchCache noteBatchCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryCounter queryCounter;
+    private User user;
+    private User admin;
+    private Note note;
+    private Note secondNote;
+
+    @BeforeEach
+    void setUp() {
+        user = persistUser("budget-user@example.com", Role.ROLE_USER);
+        admin = persistUser("budget-admin@example.com", Role.ROLE_ADMIN);
+        note = persistNote("Note 1", user);
+        secondNote = persistNote("Note 2", user);
+        entityManager.flush();
+        entityManager.clear();
+
+        authenticateAs(user);
+        queryCounter = new QueryCounter(entityManagerFactory);
+        queryCounter.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void getNotes_AsUser_ShouldRunSingleQueryWithoutLoadingUsers() {
+        List<NoteDto> result = noteService.getNotes(null);
+
+        assertEquals(2, result.size());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(User.class);
+    }
+
+    @Test
+    void getNotes_AsAdmin_ShouldRunSingleQueryWithoutLoadingUsers() {
+        authenticateAs(admin);
+
+        noteService.getNotes(null);
+
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(User.class);
+    }
+
+    @Test
+    void getNotes_AsAdminWithUserId_ShouldRunSingleQuery() {
+        authenticateAs(admin);
+
+        noteService.getNotes(user.getId());
+
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(User.class);
+    }
+
+    @Test
+    void getNote_ShouldRunSingleQuery() {
+        noteService.getNote(note.getId());
+
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(User.class);
+    }
+
+    @Test
+    void getNotesByIds_OnCacheMiss_ShouldRunSingleQuery() {
+        List<NoteDto> result = noteService.getNotesByIds(List.of(note.getId(), secondNote.getId()));
+
+        assertEquals(2, result.size());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(User.class);
+    }
+
+    @Test
+    void getNotes_WithFields_ShouldProjectWithoutLoadingEntities() {
+        List<NoteDto> result = noteService.getNotes(null, NoteField.parse("title"));
+
+        assertEquals(2, result.size());
+        assertEquals("Note 1", result.get(0).getTitle());
+        assertNull(result.get(0).getContent());
+        assertNull(result.get(0).getUserId());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(Note.class);
+    }
+
+    @Test
+    void getNote_WithFields_ShouldProjectWithoutLoadingEntities() {
+        NoteDto result = noteService.getNote(note.getId(), NoteField.parse("title,userId"));
+
+        assertEquals(user.getId(), result.getUserId());
+        assertNull(result.getCreatedAt());
+        queryCounter.assertStatementCount(1);
+        queryCounter.assertNotLoaded(Note.class);
+    }
+
+    @Test
+    void createNote_ShouldStayWithinBudget() {
+        NoteDto noteDto = new NoteDto();
+        noteDto.setTitle("New Note");
+        noteDto.setContent("Content");
+
+        noteService.createNote(noteDto);
+        entityManager.flush();
+
+        // insert only; the owner is set from a reference
+        queryCounter.assertStatementCount(1);
+    }
+
+    @Test
+    void updateNote_ShouldStayWithinBudget() {
+        NoteDto noteDto = new NoteDto();
+        noteDto.setTitle("Updated Title");
+        noteDto.setContent("Updated Content");
+
+        noteService.updateNote(note.getId(), noteDto);
+        entityManager.flush();
+
+        // note lookup, revision insert, update
+        queryCounter.assertStatementCount(3);
+    }
+
+    @Test
+    void partialUpdateNote_ShouldStayWithinBudget() {
+        noteService.partialUpdateNote(note.getId(), Map.of("content", "Patched"));
+        entityManager.flush();
+
+        // note lookup, revision insert, update
+        queryCounter.assertStatementCount(3);
+    }
+
+    @Test
+    void deleteNote_ShouldStayWithinBudget() {
+        noteService.deleteNote(note.getId());
+        entityManager.flush();
+
+        // note lookup, delete
+        queryCounter.assertStatementCount(2);
+    }
+
+    @Test
+    void getAllUsers_ShouldRunSingleQuery() {
+        authenticateAs(admin);
+
+        userService.getAllUsers();
+
+        queryCounter.assertStatementCount(1);
+    }
+
+    private User persistUser(String email, Role role) {
+        User newUser = new User();
+        newUser.setEmail(email);
+        newUser.setPassword("password");
+        newUser.setRole(role);
+        return entityManager.persist(newUser);
+    }
+
+    private Note persistNote(String title, User owner) {
+        Note newNote = new Note();
+        newNote.setTitle(title);
+        newNote.setContent("Test content");
+        newNote.setUser(owner);
+        return entityManager.persist(newNote);
+    }
+
+    private void authenticateAs(User account) {
+        UserPrincipal principal = UserPrincipal.create(account);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
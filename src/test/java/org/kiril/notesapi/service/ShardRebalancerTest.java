@@ -0,0 +1,260 @@
+package org.kiril.notesapi.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kiril.notesapi.datasource.ShardDirectory;
+import org.kiril.notesapi.datasource.ShardFence;
+import org.kiril.notesapi.datasource.ShardRouter;
+import org.kiril.notesapi.datasource.ShardRoutingDataSource;
+import org.kiril.notesapi.datasource.ShardingProperties;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Moves run against two Postgres schemas standing in for the primary and a shard; the fence
+// relies on advisory locks, so H2 won't do. Skipped when Docker is not available.
+@Testcontainers(disabledWithoutDocker = true)
+class ShardRebalancerTest {
+    private static final String SHARD = "shard-1";
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    private static HikariDataSource primary;
+    private static HikariDataSource shard;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private ShardRoutingDataSource shards;
+    private DataSource dataSource;
+    private DataSourceTransactionManager transactionManager;
+    private ShardRebalancer rebalancer;
+    private Long userId;
+
+    @BeforeAll
+    static void migrate() {
+        primary = pool("main");
+        shard = pool("shard1");
+        Flyway.configure().dataSource(primary).schemas("main").load().migrate();
+        Flyway.configure()
+                .dataSource(shard)
+                .schemas("shard1")
+                .locations("classpath:db/shard")
+                .placeholders(Map.of("idStart", "1000000"))
+                .load()
+                .migrate();
+    }
+
+    @AfterAll
+    static void closePools() {
+        primary.close();
+        shard.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        shards = new ShardRoutingDataSource(Map.of(ShardRouter.PRIMARY_SHARD, primary, SHARD, shard));
+        shards.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(shards);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+
+        ShardRouter router = new ShardRouter(List.of(ShardRouter.PRIMARY_SHARD, SHARD));
+        ShardDirectory directory = new ShardDirectory(new JdbcTemplate(primary), router);
+        ShardingProperties properties = new ShardingProperties();
+        properties.setAssignmentRefreshInterval(Duration.ofMillis(100));
+        rebalancer = new ShardRebalancer(router, shards, directory, properties,
+                new ShardFence(dataSource, shards, router));
+
+        userId = new JdbcTemplate(primary).queryForObject(
+                "INSERT INTO users (email, password, role) VALUES (?, 'x', 'ROLE_USER') RETURNING id",
+                Long.class, "user-" + System.nanoTime() + "@example.com");
+        directory.assign(userId, ShardRouter.PRIMARY_SHARD);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void moveUser_ShouldMoveNotesWithAttachmentsRevisionsAndJournal() {
+        Long noteId = seedNote("Existing");
+
+        int moved = rebalancer.moveUser(userId, SHARD);
+
+        assertEquals(1, moved);
+        assertEquals(List.of("Existing"), titles(shard));
+        assertEquals(1, count(shard, "note_attachments", noteId));
+        assertEquals(1, count(shard, "note_revisions", noteId));
+        assertEquals(1, count(shard, "note_changes", noteId));
+        assertEquals(List.of(), titles(primary));
+        assertEquals(0, count(primary, "note_attachments", noteId));
+        assertEquals(0, count(primary, "note_revisions", noteId));
+        assertEquals(0, count(primary, "note_changes", noteId));
+    }
+
+    @Test
+    void startMove_ShouldMoveInBackgroundAndRefuseSecondMove() throws Exception {
+        seedNote("Existing");
+
+        assertTrue(rebalancer.startMove(userId, SHARD));
+        // The old copy is kept for a refresh interval, so the first move is still running
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> rebalancer.startMove(userId, SHARD));
+        assertEquals(HttpStatus.CONFLICT, refused.getStatusCode());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!titles(primary).isEmpty()) {
+            assertTrue(System.nanoTime() < deadline, "The move never finished");
+            Thread.sleep(10);
+        }
+        assertEquals(List.of("Existing"), titles(shard));
+    }
+
+    @Test
+    void moveUser_ShouldWaitForWriteInProgressAndRefuseLaterOnes() throws Exception {
+        seedNote("Existing");
+        // Writers on another node, which only learns about the move through the fence
+        NoteShards otherNode = otherNode();
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+
+        Future<?> inProgress = executor.submit(() -> writeNote(otherNode, "Written during move", () -> {
+            written.countDown();
+            await(commit);
+        }));
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+
+        Future<Integer> move = executor.submit(() -> rebalancer.moveUser(userId, SHARD));
+        awaitFence();
+        Future<?> late = executor.submit(() -> writeNote(otherNode, "Written after the fence", () -> {
+        }));
+        Thread.sleep(300);
+        assertFalse(move.isDone(), "The copy must wait for the write in progress");
+
+        commit.countDown();
+        inProgress.get(5, TimeUnit.SECONDS);
+
+        assertEquals(2, move.get(10, TimeUnit.SECONDS));
+        ExecutionException refused = assertThrows(ExecutionException.class, () -> late.get(5, TimeUnit.SECONDS));
+        ResponseStatusException cause = assertInstanceOf(ResponseStatusException.class, refused.getCause());
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, cause.getStatusCode());
+        assertEquals(List.of("Existing", "Written during move"), titles(shard));
+        assertEquals(List.of(), titles(primary));
+    }
+
+    @Test
+    void write_OnNodeWithStaleAssignment_ShouldBeRefusedThenRerouted() {
+        seedNote("Existing");
+        NoteShards staleNode = otherNode();
+
+        rebalancer.moveUser(userId, SHARD);
+
+        ResponseStatusException refused = assertThrows(ResponseStatusException.class,
+                () -> writeNote(staleNode, "Stale", () -> {
+                }));
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, refused.getStatusCode());
+
+        writeNote(staleNode, "Retried", () -> {
+        });
+
+        assertEquals(List.of("Existing", "Retried"), titles(shard));
+        assertEquals(List.of(), titles(primary));
+    }
+
+    private NoteShards otherNode() {
+        ShardRouter router = new ShardRouter(List.of(ShardRouter.PRIMARY_SHARD, SHARD));
+        new ShardDirectory(new JdbcTemplate(primary), router).refresh();
+
+        StaticListableBeanFactory beans = new StaticListableBeanFactory();
+        beans.addBean("shardRouter", router);
+        beans.addBean("shardFence", new ShardFence(dataSource, shards, router));
+        return new NoteShards(beans.getBeanProvider(ShardRouter.class), beans.getBeanProvider(ShardFence.class),
+                transactionManager);
+    }
+
+    private void writeNote(NoteShards node, String title, Runnable beforeCommit) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> node.onUserShard(userId, () -> {
+            jdbc.update("INSERT INTO notes (title, user_id, created_at, updated_at) VALUES (?, ?, now(), now())",
+                    title, userId);
+            beforeCommit.run();
+            return null;
+        }));
+    }
+
+    private Long seedNote(String title) {
+        JdbcTemplate jdbc = new JdbcTemplate(primary);
+        Long noteId = jdbc.queryForObject(
+                "INSERT INTO notes (title, content, user_id, created_at, updated_at) VALUES (?, 'body', ?, now(), now()) RETURNING id",
+                Long.class, title, userId);
+        jdbc.update("INSERT INTO note_revisions (revision, title, snapshot, content, created_at, note_id) VALUES (0, ?, TRUE, 'body', now(), ?)",
+                title, noteId);
+        jdbc.update("INSERT INTO note_attachments (filename, content_type, byte_size, sha256, created_at, note_id) VALUES ('a.txt', 'text/plain', 4, ?, now(), ?)",
+                "0".repeat(64), noteId);
+        jdbc.update("INSERT INTO note_changes (note_id, user_id, type, version, created_at) VALUES (?, ?, 'UPSERT', 0, now())",
+                noteId, userId);
+        return noteId;
+    }
+
+    private List<String> titles(DataSource shard) {
+        return new JdbcTemplate(shard).queryForList(
+                "SELECT title FROM notes WHERE user_id = ? ORDER BY id", String.class, userId);
+    }
+
+    private int count(DataSource shard, String table, Long noteId) {
+        return new JdbcTemplate(shard).queryForObject(
+                "SELECT COUNT(*) FROM " + table + " WHERE note_id = ?", Integer.class, noteId);
+    }
+
+    private void awaitFence() throws InterruptedException {
+        JdbcTemplate jdbc = new JdbcTemplate(primary);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (jdbc.queryForObject("SELECT COUNT(*) FROM user_fences WHERE user_id = ?", Integer.class, userId) == 0) {
+            assertTrue(System.nanoTime() < deadline, "The move never raised its fence");
+            Thread.sleep(10);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static HikariDataSource pool(String schema) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(postgres.getJdbcUrl());
+        pool.setUsername(postgres.getUsername());
+        pool.setPassword(postgres.getPassword());
+        pool.setSchema(schema);
+        return pool;
+    }
+}
@@ -0,0 +1,41 @@
+package org.kiril.notesapi.support;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the JDBC statements Hibernate prepares between {@link #reset()} and an assertion,
+ * so tests can pin how many queries an operation is allowed to run.
+ */
+public class QueryCounter {
+    private final Statistics statistics;
+
+    public QueryCounter(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.statistics.setStatisticsEnabled(true);
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    public long statementCount() {
+        return statistics.getPrepareStatementCount();
+    }
+
+    public void assertStatementCount(long expected) {
+        assertEquals(expected, statementCount(),
+                "Unexpected number of SQL statements; the query budget for this operation changed");
+    }
+
+    // Fails when entities of the given type were hydrated, e.g. a lazy Note.user proxy being
+    // initialized while a list is mapped to DTOs (the classic N+1)
+    public void assertNotLoaded(Class<?> entityType) {
+        long loads = statistics.getEntityStatistics(entityType.getName()).getLoadCount();
+        assertEquals(0, loads,
+                "Lazy " + entityType.getSimpleName() + " proxies were initialized " + loads + " time(s)");
+    }
+}
@@ -0,0 +1,33 @@
+package org.kiril.notesapi.text;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextDeltaTest {
+
+    @Test
+    void apply_ShouldApplyEditsAgainstBaseOffsets() {
+        String result = TextDelta.apply("The quick brown fox", List.of(
+                new TextEdit(4, 5, "slow"),
+                new TextEdit(10, 5, "red"),
+                new TextEdit(19, 0, " jumps")));
+
+        assertEquals("The slow red fox jumps", result);
+    }
+
+    @Test
+    void apply_WithOverlappingEdits_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () -> TextDelta.apply("abcdef", List.of(
+                new TextEdit(1, 3, "x"),
+                new TextEdit(2, 1, "y"))));
+    }
+
+    @Test
+    void apply_PastEnd_ShouldFail() {
+        assertThrows(IllegalArgumentException.class, () ->
+                TextDelta.apply("abc", List.of(new TextEdit(2, 5, null))));
+    }
+}